@@ -0,0 +1,184 @@
+package com.example.kidappapi.cache;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按主键合并查询的批量加载器（DataLoader风格）
+ * 同一个键正在加载时，后来的调用直接等待同一结果；
+ * 一个时间窗口内不同键的查询合并为一次批量（IN）查询。
+ * 等待同一结果的调用方各自得到一份副本，互相修改不会影响。
+ * 调度线程只负责收集窗口内的键，批量查询在单独的查询线程池中执行，
+ * 一次慢查询不会推迟后续窗口的调度
+ */
+public class BatchLoader<K, V> {
+
+    // 等待执行的批量查询上限，超出时该批调用方收到RejectedExecutionException
+    private static final int QUERY_QUEUE_CAPACITY = 1000;
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final UnaryOperator<V> copier;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService queryExecutor;
+
+    // 正在加载的键 -> 结果
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<K> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param name 调度线程名称
+     * @param batchFunction 批量查询函数，返回键到值的映射，不存在的键不出现在结果中
+     * @param copier 复制值，每个调用方拿到各自的副本
+     * @param windowMillis 合并窗口（毫秒），窗口内的查询合并为一次批量查询
+     * @param maxBatchSize 单次批量查询的最大键数
+     * @param timeoutMillis 等待批量查询结果的超时时间（毫秒）
+     * @param queryThreads 执行批量查询的线程数
+     */
+    public BatchLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction, UnaryOperator<V> copier,
+                       long windowMillis, int maxBatchSize, long timeoutMillis, int queryThreads) {
+        this.batchFunction = batchFunction;
+        this.copier = copier;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUERY_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-query-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 加载一个键，不存在时返回空
+     * 处于读写事务中时直接查询，保证能读到本事务尚未提交的数据
+     * @throws QueryTimeoutException 等待批量查询结果超时
+     */
+    public Optional<V> load(K key) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Optional.ofNullable(batchFunction.apply(Collections.singletonList(key)).get(key));
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        queue.add(key);
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.schedule(this::dispatch, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return await(future);
+    }
+
+    /**
+     * 停止调度线程和查询线程池（容器关闭时调用）
+     */
+    public void shutdown() {
+        dispatcher.shutdown();
+        queryExecutor.shutdown();
+    }
+
+    // 先清除调度标记再取队列，保证之后入队的键会触发新的调度
+    private void dispatch() {
+        scheduled.set(false);
+        List<K> batch = new ArrayList<>();
+        K key;
+        while ((key = queue.poll()) != null) {
+            batch.add(key);
+            if (batch.size() >= maxBatchSize) {
+                submit(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    private void submit(List<K> keys) {
+        try {
+            queryExecutor.execute(() -> loadBatch(keys));
+        } catch (RejectedExecutionException e) {
+            fail(keys, e);
+        }
+    }
+
+    private void loadBatch(List<K> keys) {
+        try {
+            Map<K, V> loaded = batchFunction.apply(keys);
+            for (K key : keys) {
+                CompletableFuture<V> future = inFlight.remove(key);
+                if (future != null) {
+                    future.complete(loaded.get(key));
+                }
+            }
+        } catch (Throwable e) {
+            fail(keys, e);
+        }
+    }
+
+    private void fail(List<K> keys, Throwable cause) {
+        for (K key : keys) {
+            CompletableFuture<V> future = inFlight.remove(key);
+            if (future != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    // 有限时间等待结果，超时后调用方放弃等待，批量查询完成时仍会清理该键
+    private Optional<V> await(CompletableFuture<V> future) {
+        V value;
+        try {
+            value = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量加载被中断", e);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("批量加载超时", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("批量加载失败", e.getCause());
+        }
+        return Optional.ofNullable(value).map(copier);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 列表总数缓存
+ * 分页接口确实需要总数时使用，短时间内复用同一COUNT结果，总数为近似值
+ */
+@Component
+public class CountCache {
+
+    private final LocalCache<String, Long> counts;
+
+    // 每次删除时递增，COUNT期间发生过删除时不缓存结果（结果可能是删除前的旧值）
+    private final AtomicLong generation = new AtomicLong();
+
+    public CountCache(
+            @Value("${list.count-cache.max-size:10000}") int maxSize,
+            @Value("${list.count-cache.ttl:30}") long ttlSeconds) {
+        this.counts = new LocalCache<>(maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * 获取缓存的总数，未命中时执行counter并缓存结果
+     */
+    public long get(String key, Supplier<Long> counter) {
+        Long count = counts.get(key);
+        if (count == null) {
+            long startGeneration = generation.get();
+            count = counter.get();
+            counts.put(key, count);
+            if (generation.get() != startGeneration) {
+                counts.remove(key);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 删除指定总数缓存（事务提交后）
+     */
+    public void evict(String key) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            counts.remove(key);
+        });
+    }
+
+    /**
+     * 删除以指定前缀开头的所有总数缓存（事务提交后）
+     */
+    public void evictByPrefix(String prefix) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            counts.removeIf(key -> key.startsWith(prefix));
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.kidappapi.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 进程内有界缓存，按LRU淘汰并支持过期时间
+ * 按键的哈希分为多个分段，每个分段独立加锁并独立按LRU淘汰（近似全局LRU），
+ * 访问顺序的维护只在分段内串行，不同键的读取不会竞争同一把锁
+ */
+public class LocalCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    // 容量较小的缓存分段少一些，避免分段过小、按哈希分布不均时过早淘汰
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final long ttlMillis;
+    private final Segment<K, V>[] segments;
+
+    /**
+     * @param maxSize 最大条目数，超出时淘汰所在分段中最久未访问的条目
+     * @param ttlMillis 条目过期时间（毫秒）
+     */
+    @SuppressWarnings("unchecked")
+    public LocalCache(int maxSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // 总容量按分段均分，余数分给前面的分段
+            int segmentSize = maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(segmentSize);
+        }
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                segment.entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * 移除缓存
+     */
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.remove(key);
+        }
+    }
+
+    /**
+     * 移除满足条件的缓存
+     */
+    public void removeIf(Predicate<K> predicate) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<K> iterator = segment.entries.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (predicate.test(iterator.next())) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+    }
+
+    /**
+     * 当前条目数（包含尚未清理的过期条目）
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    // 打散哈希的高位，避免连续整数键集中在少数分段
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        private Segment(int maxSize) {
+            this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.util.TransactionCallbacks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 公共列表接口的响应缓存
+ * 缓存序列化后的UTF-8 JSON字节和对应的ETag，命中时不再查询数据库和序列化；
+ * 视频变更时删除，计数变化造成的滞后最长不超过过期时间；
+ * 同一个键未命中时只有一个请求查询和序列化，其他请求等待同一结果
+ */
+@Component
+public class ResponseBodyCache {
+
+    /**
+     * 视频目录接口（全部、类型、热门、最新）的缓存键前缀
+     */
+    public static final String VIDEO_CATALOG_PREFIX = "video:catalog:";
+
+    private final LocalCache<String, CachedBody> bodies;
+    private final ObjectMapper objectMapper;
+
+    // 正在生成的响应：键 -> 结果
+    private final Map<String, CompletableFuture<CachedBody>> loading = new ConcurrentHashMap<>();
+
+    // 每次删除时递增，生成期间发生过删除时不缓存结果（结果可能是删除前的旧数据）
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ResponseBodyCache(
+            ObjectMapper objectMapper,
+            @Value("${response-cache.max-size:1000}") int maxSize,
+            @Value("${response-cache.ttl:5}") long ttlSeconds) {
+        this.bodies = new LocalCache<>(maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds));
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 获取缓存的响应，未命中时调用loader生成响应对象并序列化缓存
+     */
+    public CachedBody get(String key, Supplier<?> loader) {
+        CachedBody cached = bodies.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<CachedBody> future = new CompletableFuture<>();
+        CompletableFuture<CachedBody> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            long startGeneration = generation.get();
+            CachedBody body = serialize(loader.get());
+            bodies.put(key, body);
+            if (generation.get() != startGeneration) {
+                bodies.remove(key);
+            }
+            future.complete(body);
+            return body;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 删除以指定前缀开头的所有响应缓存（事务提交后）
+     */
+    public void evictByPrefix(String prefix) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            bodies.removeIf(key -> key.startsWith(prefix));
+        });
+    }
+
+    // 等待其他请求生成的结果，生成失败时抛出同样的异常
+    private static CachedBody await(CompletableFuture<CachedBody> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CachedBody serialize(Object response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new CachedBody(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("响应序列化失败", e);
+        }
+    }
+
+    /**
+     * 序列化后的响应体和强ETag
+     */
+    public static final class CachedBody {
+        private final byte[] body;
+        private final String eTag;
+
+        private CachedBody(byte[] body, String eTag) {
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * 请求的If-None-Match是否与当前ETag匹配（支持多个值、弱比较和*）
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals("*") || value.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.model.dto.UserCredential;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 登录凭据短期缓存，按登录账号（用户名或邮箱）缓存查询结果，
+ * 账号不存在时缓存空列表，避免同一账号的集中登录反复查询数据库。
+ * 数据库按忽略大小写的排序规则匹配账号，缓存键同样统一为小写
+ */
+@Component
+public class UserCredentialCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final LocalCache<String, List<UserCredential>> credentials;
+
+    // 按账号分段的失效版本号：查询期间同一分段发生过失效时撤销写入，避免旧凭据覆盖失效
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public UserCredentialCache(
+            @Value("${user.credential-cache.max-size:10000}") int maxSize,
+            @Value("${user.credential-cache.ttl:10}") long ttlSeconds) {
+        this.credentials = new LocalCache<>(maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * 获取账号对应的凭据，未命中时调用loader查询并缓存
+     */
+    public List<UserCredential> get(String account, Function<String, List<UserCredential>> loader) {
+        String key = normalize(account);
+        List<UserCredential> cached = credentials.get(key);
+        if (cached == null) {
+            long generation = generations.get(stripe(key));
+            cached = loader.apply(account);
+            credentials.put(key, cached);
+            if (generations.get(stripe(key)) != generation) {
+                credentials.remove(key);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * 移除账号对应的缓存（新增、修改、删除用户或修改密码时调用，事务提交后生效）
+     * 一个用户对应用户名和邮箱两个账号键，修改用户名或邮箱时新旧账号都要传入
+     */
+    public void evict(String... accounts) {
+        TransactionCallbacks.afterCommit(() -> {
+            for (String account : accounts) {
+                if (account != null) {
+                    // 先递增版本号再删除，保证并发查询要么被删除，要么在写入后发现版本变化自行撤销
+                    String key = normalize(account);
+                    generations.incrementAndGet(stripe(key));
+                    credentials.remove(key);
+                }
+            }
+        });
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static String normalize(String account) {
+        return account.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.model.dto.UserSummary;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 用户展示信息缓存（ID -> 昵称、头像），评论列表等内嵌用户资料时批量读取，
+ * 活跃用户的资料不再查询数据库；用户修改或删除时失效
+ */
+@Component
+public class UserSummaryCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final LocalCache<Long, UserSummary> summaries;
+
+    // 按ID分段的失效版本号：加载期间同一分段发生过失效时撤销写入，避免旧资料覆盖失效后缓存到过期
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public UserSummaryCache(
+            @Value("${user.summary-cache.max-size:50000}") int maxSize,
+            @Value("${user.summary-cache.ttl:600}") long ttlSeconds) {
+        this.summaries = new LocalCache<>(maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * 批量读穿获取用户展示信息，未命中的ID交给loader一次性加载，不存在的ID不出现在结果中
+     * loader在调用方当前的事务中执行：评论列表在只读事务中调用，读取副本；没有事务时读取主库
+     */
+    public Map<Long, UserSummary> getAll(Collection<Long> ids,
+                                         Function<Collection<Long>, List<UserSummary>> loader) {
+        Map<Long, UserSummary> result = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            UserSummary summary = summaries.get(id);
+            if (summary != null) {
+                result.put(id, summary);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<Long, Long> loadGenerations = new HashMap<>();
+            for (Long id : missingIds) {
+                loadGenerations.put(id, generations.get(stripe(id)));
+            }
+            for (UserSummary loaded : loader.apply(missingIds)) {
+                Long id = loaded.getUserId();
+                summaries.put(id, loaded);
+                Long generation = loadGenerations.get(id);
+                if (generation == null || generations.get(stripe(id)) != generation) {
+                    summaries.remove(id);
+                }
+                result.put(id, loaded);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 删除用户展示信息缓存（用户修改或删除提交后）
+     */
+    public void evict(Long id) {
+        TransactionCallbacks.afterCommit(() -> {
+            // 先递增版本号再删除，保证并发加载要么被删除，要么在写入后发现版本变化自行撤销
+            generations.incrementAndGet(stripe(id));
+            summaries.remove(id);
+        });
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(id.hashCode(), GENERATION_STRIPES);
+    }
+}
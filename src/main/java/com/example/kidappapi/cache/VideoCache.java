@@ -0,0 +1,230 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.util.TransactionCallbacks;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 视频两级读穿缓存
+ * 一级为进程内有界缓存，二级为Redis（可选），视频变更或计数写回时删除两级缓存并通过Redis频道通知其他节点；
+ * 本节点尚未写回的计数增量由调用方合并，其他节点的增量在其写回后可见
+ */
+@Component
+public class VideoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoCache.class);
+
+    /**
+     * 视频缓存失效通知频道，消息内容为视频ID
+     */
+    public static final String INVALIDATE_CHANNEL = "video:cache:invalidate";
+
+    private static final String REDIS_KEY_PREFIX = "video:cache:";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final LocalCache<Integer, Video> localCache;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean redisEnabled;
+    private final long redisTtlSeconds;
+
+    // 按ID分段的失效版本号：加载期间同一分段发生过失效时撤销写入，避免加载到的旧值覆盖失效
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    public VideoCache(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${video.cache.local.max-size:10000}") int localMaxSize,
+            @Value("${video.cache.local.ttl:60}") long localTtlSeconds,
+            @Value("${video.cache.redis.enabled:false}") boolean redisEnabled,
+            @Value("${video.cache.redis.ttl:600}") long redisTtlSeconds) {
+        this.localCache = new LocalCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds));
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisEnabled = redisEnabled;
+        this.redisTtlSeconds = redisTtlSeconds;
+    }
+
+    /**
+     * 读穿获取视频：一级缓存 -> Redis -> loader，返回副本，调用方可以自由修改
+     */
+    public Optional<Video> get(Integer id, Function<Integer, Optional<Video>> loader) {
+        Video video = localCache.get(id);
+        if (video == null) {
+            long generation = generation(id);
+            video = getFromRedis(id);
+            boolean fromRedis = video != null;
+            if (!fromRedis) {
+                Optional<Video> loaded = loader.apply(id);
+                if (!loaded.isPresent()) {
+                    return Optional.empty();
+                }
+                video = copyOf(loaded.get());
+            }
+            cache(video, generation, !fromRedis);
+        }
+        return Optional.of(copyOf(video));
+    }
+
+    /**
+     * 批量读穿获取视频，未命中的ID交给loader一次性加载，不存在的ID会被忽略
+     */
+    public List<Video> getAll(Collection<Integer> ids, Function<Collection<Integer>, List<Video>> loader) {
+        List<Video> videos = new ArrayList<>();
+        List<Integer> missingIds = new ArrayList<>();
+        Map<Integer, Long> loadGenerations = new HashMap<>();
+        for (Integer id : ids) {
+            Video video = localCache.get(id);
+            if (video == null) {
+                long generation = generation(id);
+                video = getFromRedis(id);
+                if (video != null) {
+                    cache(video, generation, false);
+                } else {
+                    loadGenerations.put(id, generation);
+                }
+            }
+            if (video != null) {
+                videos.add(copyOf(video));
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (Video loaded : loader.apply(missingIds)) {
+                Video video = copyOf(loaded);
+                Long generation = loadGenerations.get(video.getId());
+                if (generation != null) {
+                    cache(video, generation, true);
+                }
+                videos.add(copyOf(video));
+            }
+        }
+        return videos;
+    }
+
+    /**
+     * 删除视频缓存并通知其他节点（事务提交后）
+     */
+    public void evict(Integer id) {
+        TransactionCallbacks.afterCommit(() -> doEvict(id));
+    }
+
+    /**
+     * 只删除本节点的一级缓存（收到其他节点的失效通知时调用）
+     */
+    public void evictLocal(Integer id) {
+        // 先递增版本号再删除，保证并发加载要么被删除，要么在写入后发现版本变化自行撤销
+        generations.incrementAndGet(stripe(id));
+        localCache.remove(id);
+    }
+
+    private void doEvict(Integer id) {
+        evictLocal(id);
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(REDIS_KEY_PREFIX + id);
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, id.toString());
+        } catch (RuntimeException e) {
+            logger.warn("删除视频Redis缓存失败: {}", e.getMessage());
+        }
+    }
+
+    // 写入缓存后再检查版本号，加载期间发生过失效则撤销写入（最多造成一次未命中）
+    private void cache(Video video, long generation, boolean writeRedis) {
+        Integer id = video.getId();
+        if (writeRedis) {
+            putToRedis(video);
+        }
+        localCache.put(id, video);
+        if (generation(id) != generation) {
+            localCache.remove(id);
+            if (writeRedis) {
+                deleteFromRedis(id);
+            }
+        }
+    }
+
+    private long generation(Integer id) {
+        return generations.get(stripe(id));
+    }
+
+    private static int stripe(Integer id) {
+        return Math.floorMod(id.hashCode(), GENERATION_STRIPES);
+    }
+
+    private void deleteFromRedis(Integer id) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(REDIS_KEY_PREFIX + id);
+        } catch (RuntimeException e) {
+            logger.warn("删除视频Redis缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private Video getFromRedis(Integer id) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + id);
+            return json != null ? objectMapper.readValue(json, Video.class) : null;
+        } catch (Exception e) {
+            logger.warn("读取视频Redis缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(Video video) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + video.getId(),
+                    objectMapper.writeValueAsString(video), redisTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("写入视频Redis缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 复制视频，缓存和批量加载器交给每个调用方各自的副本
+     */
+    public static Video copyOf(Video source) {
+        Video video = new Video();
+        video.setId(source.getId());
+        video.setTitle(source.getTitle());
+        video.setDescription(source.getDescription());
+        video.setUrl(source.getUrl());
+        video.setThumbnailUrl(source.getThumbnailUrl());
+        video.setDuration(source.getDuration());
+        video.setType(source.getType());
+        video.setLikesCount(source.getLikesCount());
+        video.setCommentsCount(source.getCommentsCount());
+        video.setCreatedAt(source.getCreatedAt());
+        video.setUpdatedAt(source.getUpdatedAt());
+        return video;
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.entity.LikedVideo;
+import com.example.kidappapi.repository.LikedVideoRepository;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 基于Redis的点赞状态存储
+ * 每个用户点赞的视频ID保存为一个Redis集合，检查是否点赞只访问Redis，
+ * 点赞/取消点赞记录在调用方事务提交后由单线程按顺序异步写回liked_vedios表，调用方事务回滚时撤销Redis中的操作。
+ * 集合的读写、加载和过期时间都在同一个Lua脚本中完成；每次修改同时把该视频最新的操作记入排队操作哈希，
+ * 集合过期后重新加载时在数据库结果上叠加这些操作，避免尚未写回的操作丢失；
+ * 写回成功后删除对应的排队操作并递增版本号，加载期间版本号变化（查询可能未看到刚写回的操作）时重新加载
+ */
+@Component
+public class LikedVideoRedisStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikedVideoRedisStore.class);
+
+    // 集合、排队操作哈希和版本号使用相同的哈希标签，保证在Redis集群中位于同一个槽，可以在一个脚本中访问
+    private static final String USER_KEY_PREFIX = "liked:user:";
+    private static final String PENDING_KEY_PREFIX = "liked:pending:";
+    private static final String VERSION_KEY_PREFIX = "liked:version:";
+
+    // 占位成员，保证用户没有任何点赞时集合也存在，用于区分"未加载"和"无点赞"
+    private static final String LOADED_MARKER = "-";
+
+    // 排队操作的取值前缀："1:令牌"为点赞，"0:令牌"为取消点赞
+    private static final String LIKE_OP = "1";
+    private static final String UNLIKE_OP = "0";
+
+    private static final int PERSIST_MAX_ATTEMPTS = 3;
+    private static final long PERSIST_RETRY_DELAY_MILLIS = 100;
+    private static final int PERSIST_QUEUE_CAPACITY = 10000;
+    // 写回队列满时调用方最多等待的时间，超时则撤销该操作
+    private static final long PERSIST_ENQUEUE_TIMEOUT_MILLIS = 1000;
+    private static final int LOAD_MAX_ATTEMPTS = 3;
+
+    /**
+     * 读取写回版本号：KEYS[3]=版本号，不存在时返回null
+     */
+    static final RedisScript<String> VERSION_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('GET', KEYS[3])",
+            String.class);
+
+    /**
+     * 集合不存在时加载：KEYS[1]=点赞集合 KEYS[2]=排队操作哈希 KEYS[3]=版本号
+     * ARGV[1]=过期秒数 ARGV[2]=查询数据库前读到的版本号（不存在时为空串） ARGV[3..]=数据库中的视频ID
+     * 返回1表示已加载，0表示集合已存在（其他请求先加载了），-1表示查询期间有操作写回，需要重新查询
+     */
+    static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n"
+                    + "if (redis.call('GET', KEYS[3]) or '') ~= ARGV[2] then return -1 end\n"
+                    + "redis.call('SADD', KEYS[1], '" + LOADED_MARKER + "')\n"
+                    + "for i = 3, #ARGV, 1000 do\n"
+                    + "  redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))\n"
+                    + "end\n"
+                    + "local pending = redis.call('HGETALL', KEYS[2])\n"
+                    + "for i = 1, #pending, 2 do\n"
+                    + "  if string.sub(pending[i + 1], 1, 1) == '" + LIKE_OP + "' then\n"
+                    + "    redis.call('SADD', KEYS[1], pending[i])\n"
+                    + "  else\n"
+                    + "    redis.call('SREM', KEYS[1], pending[i])\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 点赞或取消点赞：KEYS[1]=点赞集合 KEYS[2]=排队操作哈希 ARGV[1]=视频ID ARGV[2]=过期秒数 ARGV[3]=操作
+     * 返回-1表示集合未加载，1表示状态已改变，0表示状态未变
+     */
+    static final RedisScript<Long> MUTATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n"
+                    + "local changed\n"
+                    + "if string.sub(ARGV[3], 1, 1) == '" + LIKE_OP + "' then\n"
+                    + "  changed = redis.call('SADD', KEYS[1], ARGV[1])\n"
+                    + "else\n"
+                    + "  changed = redis.call('SREM', KEYS[1], ARGV[1])\n"
+                    + "end\n"
+                    + "if changed == 1 then\n"
+                    + "  redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])\n"
+                    + "  redis.call('EXPIRE', KEYS[2], ARGV[2])\n"
+                    + "end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2])\n"
+                    + "return changed",
+            Long.class);
+
+    /**
+     * 检查视频是否已点赞：KEYS[1]=点赞集合 ARGV=视频ID
+     * 集合未加载时返回{-1}，否则依次返回每个视频的SISMEMBER结果
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> CHECK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {-1} end\n"
+                    + "local result = {}\n"
+                    + "for i = 1, #ARGV do\n"
+                    + "  result[i] = redis.call('SISMEMBER', KEYS[1], ARGV[i])\n"
+                    + "end\n"
+                    + "return result",
+            List.class);
+
+    /**
+     * 写回成功后确认：KEYS[2]=排队操作哈希 KEYS[3]=版本号 ARGV[1]=视频ID ARGV[2]=已写回的操作 ARGV[3]=过期秒数
+     * 该视频最新的操作仍是已写回的操作时删除它并递增版本号，返回1；已有更新的操作时保留，返回0
+     */
+    static final RedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then return 0 end\n"
+                    + "redis.call('HDEL', KEYS[2], ARGV[1])\n"
+                    + "redis.call('INCR', KEYS[3])\n"
+                    + "redis.call('EXPIRE', KEYS[3], ARGV[3])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 写回最终失败后的修复：KEYS[1]=点赞集合 KEYS[2]=排队操作哈希 ARGV[1]=视频ID ARGV[2]=失败的操作
+     * 该视频最新的操作仍是失败的操作时删除它和集合（下次访问按数据库重新加载）并返回1；
+     * 已有更新的操作覆盖时返回0，由更新的操作决定最终状态
+     */
+    static final RedisScript<Long> REPAIR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[2], ARGV[1]) == ARGV[2] then\n"
+                    + "  redis.call('HDEL', KEYS[2], ARGV[1])\n"
+                    + "  redis.call('DEL', KEYS[1])\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LikedVideoRepository likedVideoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate loadTemplate;
+    private final boolean enabled;
+    private final long ttlSeconds;
+
+    // 单线程顺序写回，保证同一用户先点赞后取消的顺序不被打乱；
+    // 队列满时不能由调用方线程执行（会与写回线程并发、打乱顺序），等待一段时间后仍满则拒绝
+    private final ExecutorService persistExecutor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(PERSIST_QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "liked-video-persist");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (runnable, executor) -> {
+                try {
+                    if (executor.isShutdown() || !executor.getQueue().offer(runnable,
+                            PERSIST_ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        throw new RejectedExecutionException("点赞记录写回队列已满");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("点赞记录写回入队被中断", e);
+                }
+            });
+
+    @Autowired
+    public LikedVideoRedisStore(
+            StringRedisTemplate redisTemplate,
+            LikedVideoRepository likedVideoRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${liked-video.redis.enabled:false}") boolean enabled,
+            @Value("${liked-video.redis.ttl:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.likedVideoRepository = likedVideoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 加载在独立的读写事务中查询主库，不加入调用方的只读事务（只读事务会路由到有复制延迟的从库）
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * 是否启用Redis点赞状态存储
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 检查用户是否已点赞视频
+     */
+    public boolean hasLiked(Integer userId, Integer videoId) {
+        List<?> result = withLoadedUser(userId,
+                () -> redisTemplate.execute(CHECK_SCRIPT, keys(userId), videoId.toString()),
+                LikedVideoRedisStore::notLoaded);
+        return Long.valueOf(1).equals(result.get(0));
+    }
+
+    /**
+     * 在给定视频ID中筛选出用户已点赞的视频
+     */
+    public Set<Integer> getLikedVideoIds(Integer userId, Collection<Integer> videoIds) {
+        Set<Integer> likedVideoIds = new HashSet<>();
+        if (videoIds.isEmpty()) {
+            return likedVideoIds;
+        }
+        // 只检查请求的视频ID，不读取用户的整个点赞集合
+        List<Integer> ids = new ArrayList<>(videoIds);
+        Object[] args = new Object[ids.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = ids.get(i).toString();
+        }
+        List<?> result = withLoadedUser(userId,
+                () -> redisTemplate.execute(CHECK_SCRIPT, keys(userId), args),
+                LikedVideoRedisStore::notLoaded);
+        for (int i = 0; i < ids.size(); i++) {
+            if (Long.valueOf(1).equals(result.get(i))) {
+                likedVideoIds.add(ids.get(i));
+            }
+        }
+        return likedVideoIds;
+    }
+
+    /**
+     * 记录点赞，已点赞过时返回false
+     * @param onPersistFailure 写回数据库最终失败、点赞被撤销时执行，用于回退点赞数
+     */
+    public boolean like(Integer userId, Integer videoId, Runnable onPersistFailure) {
+        String op = LIKE_OP + ":" + UUID.randomUUID();
+        if (!mutate(userId, videoId, op)) {
+            return false;
+        }
+        enqueuePersist(userId, videoId, op, () -> {
+            if (!likedVideoRepository.existsByUserIdAndVideoId(userId, videoId)) {
+                LikedVideo likedVideo = new LikedVideo();
+                likedVideo.setUserId(userId);
+                likedVideo.setVideoId(videoId);
+                likedVideoRepository.save(likedVideo);
+            }
+        }, onPersistFailure);
+        return true;
+    }
+
+    /**
+     * 取消点赞，未点赞时返回false
+     * @param onPersistFailure 写回数据库最终失败、取消被撤销时执行，用于回退点赞数
+     */
+    public boolean unlike(Integer userId, Integer videoId, Runnable onPersistFailure) {
+        String op = UNLIKE_OP + ":" + UUID.randomUUID();
+        if (!mutate(userId, videoId, op)) {
+            return false;
+        }
+        enqueuePersist(userId, videoId, op,
+                () -> likedVideoRepository.deleteByUserIdAndVideoId(userId, videoId), onPersistFailure);
+        return true;
+    }
+
+    /**
+     * 应用关闭前等待剩余的写回任务完成
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        persistExecutor.shutdown();
+        if (!persistExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("点赞记录写回未在关闭前全部完成");
+        }
+    }
+
+    private boolean mutate(Integer userId, Integer videoId, String op) {
+        Long changed = withLoadedUser(userId,
+                () -> redisTemplate.execute(MUTATE_SCRIPT, keys(userId), videoId.toString(),
+                        String.valueOf(ttlSeconds), op),
+                result -> result != null && result == -1);
+        return changed != null && changed == 1;
+    }
+
+    // 执行脚本，集合未加载（首次访问或已过期）时从数据库加载后重试一次
+    private <T> T withLoadedUser(Integer userId, Supplier<T> action, Predicate<T> notLoaded) {
+        T result = action.get();
+        if (!notLoaded.test(result)) {
+            return result;
+        }
+        load(userId);
+        result = action.get();
+        if (notLoaded.test(result)) {
+            throw new IllegalStateException("用户点赞记录加载失败: " + userId);
+        }
+        return result;
+    }
+
+    // 从数据库加载用户点赞的视频ID，叠加排队操作后写入集合（集合已存在时不覆盖）；
+    // 查询期间有操作写回并删除了排队记录时，查询结果可能缺少该操作，重新查询
+    private void load(Integer userId) {
+        for (int attempt = 1; attempt <= LOAD_MAX_ATTEMPTS; attempt++) {
+            String version = redisTemplate.execute(VERSION_SCRIPT, keys(userId));
+            List<Integer> videoIds = loadTemplate.execute(status -> likedVideoRepository.findVideoIdsByUserId(userId));
+            String[] args = new String[(videoIds == null ? 0 : videoIds.size()) + 2];
+            args[0] = String.valueOf(ttlSeconds);
+            args[1] = version == null ? "" : version;
+            for (int i = 2; i < args.length; i++) {
+                args[i] = videoIds.get(i - 2).toString();
+            }
+            Long loaded = redisTemplate.execute(LOAD_SCRIPT, keys(userId), (Object[]) args);
+            if (loaded == null || loaded != -1) {
+                return;
+            }
+        }
+    }
+
+    // 调用方事务提交后才交给写回线程，回滚时撤销Redis中的操作（点赞数的调整同样随事务回滚，不需要补偿）；
+    // 写回队列满被拒绝时按写回失败处理
+    private void enqueuePersist(Integer userId, Integer videoId, String op, Runnable action, Runnable onFailure) {
+        TransactionCallbacks.afterCompletion(() -> {
+            try {
+                persistExecutor.execute(() -> persist(userId, videoId, op, action, onFailure));
+            } catch (RejectedExecutionException e) {
+                logger.error("点赞记录写回队列已满，撤销该操作: userId={}, videoId={}", userId, videoId);
+                repair(userId, videoId, op, onFailure);
+            }
+        }, () -> repair(userId, videoId, op, () -> { }));
+    }
+
+    // 写回失败时重试，最终失败则撤销Redis中的操作并执行补偿
+    private void persist(Integer userId, Integer videoId, String op, Runnable action, Runnable onFailure) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> action.run());
+                acknowledge(userId, videoId, op);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= PERSIST_MAX_ATTEMPTS) {
+                    logger.error("点赞记录写回数据库失败，撤销该操作: userId={}, videoId={}, {}",
+                            userId, videoId, e.getMessage());
+                    break;
+                }
+                logger.warn("点赞记录写回数据库失败，第{}次重试: {}", attempt, e.getMessage());
+            }
+            try {
+                Thread.sleep(PERSIST_RETRY_DELAY_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        repair(userId, videoId, op, onFailure);
+    }
+
+    // 排队记录只用于重新加载时补上尚未写回的操作，写回成功后删除，避免排队操作哈希只增不减
+    private void acknowledge(Integer userId, Integer videoId, String op) {
+        try {
+            redisTemplate.execute(ACK_SCRIPT, keys(userId), videoId.toString(), op, String.valueOf(ttlSeconds));
+        } catch (RuntimeException e) {
+            // 保留的排队记录与数据库一致，重新加载时重复叠加不影响结果
+            logger.warn("点赞排队记录删除失败: userId={}, videoId={}, {}", userId, videoId, e.getMessage());
+        }
+    }
+
+    private void repair(Integer userId, Integer videoId, String op, Runnable onFailure) {
+        try {
+            Long repaired = redisTemplate.execute(REPAIR_SCRIPT, keys(userId), videoId.toString(), op);
+            if (repaired != null && repaired == 1) {
+                onFailure.run();
+            }
+        } catch (RuntimeException e) {
+            logger.error("点赞记录修复失败: userId={}, videoId={}, {}", userId, videoId, e.getMessage());
+        }
+    }
+
+    private static boolean notLoaded(List<?> result) {
+        return result == null || result.isEmpty() || Long.valueOf(-1).equals(result.get(0));
+    }
+
+    private static List<String> keys(Integer userId) {
+        String tag = "{" + userId + "}";
+        return Arrays.asList(USER_KEY_PREFIX + tag, PENDING_KEY_PREFIX + tag, VERSION_KEY_PREFIX + tag);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.kidappapi.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希（PBKDF2WithHmacSHA256）
+ * 哈希计算在独立的有界线程池中执行，队列满时直接拒绝，避免认证占满CPU拖慢其他接口；
+ * 存储格式为 pbkdf2$迭代次数$盐$哈希，不符合该格式的视为旧的明文密码，登录成功后重新哈希
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final long timeoutMillis;
+    private final long latencyBudgetMillis;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+
+    // 监控指标，由logStats定期输出
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private long lastLoggedCompleted;
+    private long lastLoggedRejected;
+
+    public PasswordHasher(
+            @Value("${password.hash.iterations:120000}") int iterations,
+            @Value("${password.hash.threads:2}") int threads,
+            @Value("${password.hash.queue-capacity:100}") int queueCapacity,
+            @Value("${password.hash.timeout:5000}") long timeoutMillis,
+            @Value("${password.hash.latency-budget:100}") long latencyBudgetMillis) {
+        this.iterations = iterations;
+        this.timeoutMillis = timeoutMillis;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 计算密码哈希
+     * @throws RejectedExecutionException 哈希线程池繁忙
+     */
+    public String hash(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = execute(() -> pbkdf2(rawPassword, salt, iterations));
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * 校验密码，兼容旧的明文密码
+     * @throws RejectedExecutionException 哈希线程池繁忙
+     */
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!isHashed(storedPassword)) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 格式损坏的哈希（迭代次数不是数字、盐或哈希不是合法的Base64）按不匹配处理
+        String[] parts = storedPassword.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            logger.warn("密码哈希格式错误: {}", e.getMessage());
+            return false;
+        }
+        if (storedIterations < 1 || salt.length == 0 || expected.length == 0) {
+            return false;
+        }
+        byte[] actual = execute(() -> pbkdf2(rawPassword, salt, storedIterations));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * 是否已经是哈希格式
+     */
+    public boolean isHashed(String storedPassword) {
+        return storedPassword != null && storedPassword.startsWith(PREFIX);
+    }
+
+    /**
+     * 是否需要重新哈希（旧的明文密码或迭代次数与当前配置不同）
+     */
+    public boolean needsRehash(String storedPassword) {
+        return !isHashed(storedPassword) || !storedPassword.startsWith(PREFIX + iterations + "$");
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 平均单次哈希耗时（毫秒）
+     */
+    public double getAverageHashMillis() {
+        long count = completedCount.sum();
+        return count == 0 ? 0 : totalHashNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * 定期输出哈希线程池指标，期间没有新的哈希或拒绝时不输出
+     */
+    @Scheduled(initialDelayString = "${password.hash.stats-interval:60000}",
+            fixedDelayString = "${password.hash.stats-interval:60000}")
+    public synchronized void logStats() {
+        long completed = getCompletedCount();
+        long rejected = getRejectedCount();
+        if (completed == lastLoggedCompleted && rejected == lastLoggedRejected) {
+            return;
+        }
+        lastLoggedCompleted = completed;
+        lastLoggedRejected = rejected;
+        logger.info("密码哈希统计: 累计完成{}次, 累计拒绝{}次, 平均耗时{}ms, 当前排队{}个",
+                completed, rejected, String.format("%.1f", getAverageHashMillis()), getQueueSize());
+    }
+
+    /**
+     * 启动后测量当前迭代次数下的单次哈希耗时，超出延迟预算时告警，用于调整password.hash.iterations
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkLatencyBudget() {
+        long start = System.nanoTime();
+        hash("calibration");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMillis > latencyBudgetMillis) {
+            logger.warn("密码哈希耗时{}ms，超出延迟预算{}ms，请降低password.hash.iterations（当前{}）",
+                    elapsedMillis, latencyBudgetMillis, iterations);
+        } else {
+            logger.info("密码哈希耗时{}ms（迭代次数{}，延迟预算{}ms）", elapsedMillis, iterations, latencyBudgetMillis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 已开始的PBKDF2计算无法被cancel(true)中断，只能在开始前放弃：
+     * 任务开始执行时已超过调用方的等待期限（调用方已超时返回）则不再计算
+     */
+    private byte[] execute(Callable<byte[]> task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> {
+                if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                    throw new TimeoutException("密码哈希等待超时，放弃计算");
+                }
+                long start = System.nanoTime();
+                byte[] result = task.call();
+                totalHashNanos.add(System.nanoTime() - start);
+                completedCount.increment();
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw e;
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            cancel(future);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (TimeoutException e) {
+            cancel(future);
+            rejectedCount.increment();
+            throw new RejectedExecutionException("密码哈希超时", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    // 取消并移出队列，排队中的任务不再占用队列容量
+    private void cancel(Future<byte[]> future) {
+        future.cancel(true);
+        if (future instanceof Runnable) {
+            executor.remove((Runnable) future);
+        }
+    }
+
+    private static byte[] pbkdf2(String rawPassword, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
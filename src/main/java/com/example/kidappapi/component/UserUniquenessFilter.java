@@ -0,0 +1,312 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.entity.User;
+import com.example.kidappapi.repository.UserRepository;
+import com.example.kidappapi.util.BloomFilter;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 用户名、邮箱、昵称的布隆过滤器，用于唯一性检查
+ * 过滤器判定不存在时直接返回，只有可能存在的值才查询数据库；启动时流式读取users表预热，
+ * 新增或修改用户时加入新值，删除或改名留下的旧值只会造成误判，由定期重建清除；
+ * 启用Redis时过滤器保存为Redis位图，多个节点共享新增的值，每次检查都确认预热标记仍然存在
+ */
+@Component
+public class UserUniquenessFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserUniquenessFilter.class);
+
+    private static final String KEY_PREFIX = "bloom:user:";
+    private static final String READY_KEY = KEY_PREFIX + "ready";
+    private static final byte[] READY_KEY_BYTES = READY_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final int WARM_UP_BATCH_SIZE = 1000;
+
+    /**
+     * 需要唯一性检查的字段
+     */
+    public enum Field {
+        USERNAME, EMAIL, NICKNAME
+    }
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final boolean redisEnabled;
+    private final long numBits;
+    private final int numHashes;
+
+    // 本地模式下的过滤器，预热完成前为null（此时所有检查都查询数据库）
+    private volatile Map<Field, BloomFilter> filters;
+    // 重建期间新加入的值同时写入正在重建的过滤器
+    private volatile Map<Field, BloomFilter> rebuilding;
+    // Redis模式下本节点是否已确认位图预热完成；读取时还会随位检查一起确认预热标记仍然存在
+    private volatile boolean redisReady;
+
+    @Autowired
+    public UserUniquenessFilter(
+            UserRepository userRepository,
+            StringRedisTemplate redisTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${user.bloom.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${user.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${user.bloom.redis.enabled:false}") boolean redisEnabled) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.redisEnabled = redisEnabled;
+        this.numBits = BloomFilter.optimalNumBits(expectedInsertions, falsePositiveRate);
+        this.numHashes = BloomFilter.optimalNumHashes(expectedInsertions, numBits);
+    }
+
+    /**
+     * 值是否可能已存在，返回false时一定不存在；未预热完成或Redis不可用时返回true
+     */
+    public boolean mightExist(Field field, String value) {
+        if (value == null || value.isEmpty()) {
+            return true;
+        }
+        if (redisEnabled) {
+            return !redisReady || redisMightContain(field, normalize(value));
+        }
+        Map<Field, BloomFilter> current = filters;
+        return current == null || current.get(field).mightContain(normalize(value));
+    }
+
+    /**
+     * 加入用户的用户名、邮箱和昵称
+     * 立即加入一次（提交前的检查也能看到，回滚只会留下误判），处于事务中时提交后再加入一次，
+     * 避免提交晚于重建读取开始时新值同时漏掉两个过滤器
+     */
+    public void add(User user) {
+        addNow(user);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionCallbacks.afterCommit(() -> addNow(user));
+        }
+    }
+
+    private void addNow(User user) {
+        if (redisEnabled) {
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    setBits(connection, user);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // 写入失败会导致漏判，标记为未预热，检查回退到数据库，等待下次重新预热
+                logger.error("用户布隆过滤器写入Redis失败: {}", e.getMessage());
+                redisReady = false;
+                try {
+                    redisTemplate.delete(READY_KEY);
+                } catch (RuntimeException ignored) {
+                    // Redis不可用时其他节点读取同样失败，会自行回退到数据库
+                }
+            }
+            return;
+        }
+        // 先写正在重建的过滤器：重建完成时先发布新过滤器再清空rebuilding，两者总有一个能写到
+        put(rebuilding, user);
+        put(filters, user);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定期重建：本地模式重新加载全部用户，清除删除和改名留下的旧值；
+     * Redis模式只在位图未预热时加载（位图由所有节点共享，只增不减）
+     */
+    @Scheduled(initialDelayString = "${user.bloom.rebuild-interval:3600000}",
+            fixedDelayString = "${user.bloom.rebuild-interval:3600000}")
+    public void rebuild() {
+        try {
+            if (redisEnabled) {
+                warmUpRedis();
+            } else {
+                rebuildLocal();
+            }
+        } catch (RuntimeException e) {
+            logger.error("用户布隆过滤器加载失败: {}", e.getMessage());
+        }
+    }
+
+    private void rebuildLocal() {
+        Map<Field, BloomFilter> rebuilt = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            rebuilt.put(field, new BloomFilter(expectedInsertions, falsePositiveRate));
+        }
+        // 先发布正在重建的过滤器再开始读取，读取开始后提交的新用户由add写入
+        rebuilding = rebuilt;
+        try {
+            int count = forEachUniqueFields(row -> {
+                for (Field field : Field.values()) {
+                    put(rebuilt.get(field), row[field.ordinal()]);
+                }
+            });
+            filters = rebuilt;
+            logger.info("用户布隆过滤器重建完成，共{}个用户", count);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void warmUpRedis() {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY))) {
+            redisReady = true;
+            return;
+        }
+        // 其他节点写入失败时会删除预热标记，本节点同样回退到数据库查询直到重新预热完成
+        redisReady = false;
+        List<String[]> batch = new ArrayList<>(WARM_UP_BATCH_SIZE);
+        int count = forEachUniqueFields(row -> {
+            batch.add(row);
+            if (batch.size() >= WARM_UP_BATCH_SIZE) {
+                setBits(batch);
+                batch.clear();
+            }
+        });
+        setBits(batch);
+        redisTemplate.opsForValue().set(READY_KEY, "1");
+        redisReady = true;
+        logger.info("用户布隆过滤器Redis位图预热完成，共{}个用户", count);
+    }
+
+    // 在只读事务中流式读取所有用户的用户名、邮箱和昵称，返回用户数
+    private int forEachUniqueFields(Consumer<String[]> consumer) {
+        Integer count = transactionTemplate.execute(status -> {
+            int rows = 0;
+            try (Stream<Object[]> stream = userRepository.streamUniqueFields()) {
+                for (Object[] row : (Iterable<Object[]>) stream::iterator) {
+                    consumer.accept(new String[]{(String) row[0], (String) row[1], (String) row[2]});
+                    rows++;
+                }
+            }
+            return rows;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 预热标记和各个位在同一次管道中读取：其他节点写入失败删除标记后，
+     * 本节点的下一次检查就会回退到数据库，不会因为缺失的位判定为不存在
+     */
+    private boolean redisMightContain(Field field, String value) {
+        byte[] key = key(field);
+        long[] positions = BloomFilter.positions(value, numBits, numHashes);
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.exists(READY_KEY_BYTES);
+                for (long position : positions) {
+                    connection.getBit(key, position);
+                }
+                return null;
+            });
+            if (!Boolean.TRUE.equals(results.get(0))) {
+                // 等待定期重建重新预热
+                redisReady = false;
+                return true;
+            }
+            for (Object bit : results.subList(1, results.size())) {
+                if (!Boolean.TRUE.equals(bit)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("用户布隆过滤器读取Redis失败，回退到数据库查询: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void setBits(List<String[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String[] row : rows) {
+                for (Field field : Field.values()) {
+                    setBits(connection, field, row[field.ordinal()]);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void setBits(RedisConnection connection, User user) {
+        setBits(connection, Field.USERNAME, user.getUsername());
+        setBits(connection, Field.EMAIL, user.getEmail());
+        setBits(connection, Field.NICKNAME, user.getNickname());
+    }
+
+    private void setBits(RedisConnection connection, Field field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        byte[] key = key(field);
+        for (long position : BloomFilter.positions(normalize(value), numBits, numHashes)) {
+            connection.setBit(key, position, true);
+        }
+    }
+
+    private static void put(Map<Field, BloomFilter> target, User user) {
+        if (target == null) {
+            return;
+        }
+        put(target.get(Field.USERNAME), user.getUsername());
+        put(target.get(Field.EMAIL), user.getEmail());
+        put(target.get(Field.NICKNAME), user.getNickname());
+    }
+
+    private static void put(BloomFilter filter, String value) {
+        if (value != null && !value.isEmpty()) {
+            filter.put(normalize(value));
+        }
+    }
+
+    /**
+     * 按MySQL默认排序规则的比较方式归一化（忽略大小写、重音和尾部空格），
+     * 避免数据库认为相同的值在过滤器中判定为不存在
+     */
+    private static String normalize(String value) {
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        int end = stripped.length();
+        while (end > 0 && stripped.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return stripped.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] key(Field field) {
+        return (KEY_PREFIX + field.name().toLowerCase()).getBytes(StandardCharsets.UTF_8);
+    }
+}
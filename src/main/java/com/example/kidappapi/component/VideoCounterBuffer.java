@@ -0,0 +1,207 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.cache.VideoCache;
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.repository.VideoRepository;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 视频点赞数/评论数写缓冲
+ * 热门视频的计数变更先在内存中按视频累加（每个视频一个LongAdder，并发更新分散到多个单元），
+ * 定时合并为一次批量UPDATE写回数据库，读取计数时需合并尚未写回的增量
+ */
+@Component
+public class VideoCounterBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoCounterBuffer.class);
+
+    private static final String FLUSH_SQL = "UPDATE vedios SET "
+            + "likes_count = GREATEST(COALESCE(likes_count, 0) + ?, 0), "
+            + "comments_count = GREATEST(COALESCE(comments_count, 0) + ?, 0) "
+            + "WHERE id = ?";
+
+    private final VideoRepository videoRepository;
+    private final VideoCache videoCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+
+    // 视频ID -> 待写回的点赞数增量
+    // 累加单元创建后不再删除：删除与并发累加之间无法避免丢失增量，单元数不超过有过计数变更的视频数
+    private final Map<Integer, LongAdder> pendingLikes = new ConcurrentHashMap<>();
+
+    // 视频ID -> 待写回的评论数增量
+    private final Map<Integer, LongAdder> pendingComments = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VideoCounterBuffer(
+            VideoRepository videoRepository,
+            VideoCache videoCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager,
+            @Value("${video.counter.buffer.enabled:true}") boolean enabled) {
+        this.videoRepository = videoRepository;
+        this.videoCache = videoCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 调整视频点赞数，处于事务中时在事务提交后才计入缓冲区；未启用缓冲时直接原子更新
+     */
+    public void addLikes(Integer videoId, int delta) {
+        if (!enabled) {
+            videoRepository.addLikesCount(videoId, delta);
+            detachVideo(videoId);
+            videoCache.evict(videoId);
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> add(pendingLikes, videoId, delta));
+    }
+
+    /**
+     * 调整视频评论数，处于事务中时在事务提交后才计入缓冲区；未启用缓冲时直接原子更新
+     */
+    public void addComments(Integer videoId, int delta) {
+        if (!enabled) {
+            videoRepository.addCommentsCount(videoId, delta);
+            detachVideo(videoId);
+            videoCache.evict(videoId);
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> add(pendingComments, videoId, delta));
+    }
+
+    /**
+     * 获取尚未写回的点赞数增量
+     */
+    public long getPendingLikes(Integer videoId) {
+        return sum(pendingLikes, videoId);
+    }
+
+    /**
+     * 获取所有视频尚未写回的点赞数增量快照
+     */
+    public Map<Integer, Long> getPendingLikesSnapshot() {
+        Map<Integer, Long> snapshot = new HashMap<>();
+        pendingLikes.forEach((videoId, cell) -> {
+            long delta = cell.sum();
+            if (delta != 0) {
+                snapshot.put(videoId, delta);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * 获取尚未写回的评论数增量
+     */
+    public long getPendingComments(Integer videoId) {
+        return sum(pendingComments, videoId);
+    }
+
+    /**
+     * 定时将合并后的增量批量写回数据库
+     */
+    @Scheduled(fixedDelayString = "${video.counter.flush-interval:1000}")
+    public synchronized void flush() {
+        Set<Integer> videoIds = new LinkedHashSet<>(pendingLikes.keySet());
+        videoIds.addAll(pendingComments.keySet());
+
+        // 取出各视频当前增量并从累加单元中减去，取出之后到达的增量留在单元中等待下次写回
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Integer videoId : videoIds) {
+            long likesDelta = drain(pendingLikes, videoId);
+            long commentsDelta = drain(pendingComments, videoId);
+            if (likesDelta != 0 || commentsDelta != 0) {
+                batchArgs.add(new Object[]{likesDelta, commentsDelta, videoId});
+            }
+        }
+
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 整批在一个事务中执行：失败时全部回滚，放回全部增量不会重复计数
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batchArgs));
+        } catch (RuntimeException e) {
+            // 写回失败时把增量放回缓冲区，等待下次重试
+            logger.error("视频计数写回失败，将在下次重试: {}", e.getMessage());
+            for (Object[] args : batchArgs) {
+                Integer videoId = (Integer) args[2];
+                add(pendingLikes, videoId, (Long) args[0]);
+                add(pendingComments, videoId, (Long) args[1]);
+            }
+            return;
+        }
+
+        // 计数已写回，删除两级缓存中的旧计数并通知其他节点，
+        // 增量已从缓冲区取出，只删一级缓存会从Redis重新读到旧计数
+        for (Object[] args : batchArgs) {
+            videoCache.evict((Integer) args[2]);
+        }
+    }
+
+    /**
+     * 应用关闭前写回所有剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 只从持久化上下文中移除该视频（不清空整个上下文，调用方已加载的其他实体保持托管），
+    // 之后读取会重新加载到最新计数，也不会把旧计数随实体保存写回；getReference不会查询数据库
+    private void detachVideo(Integer videoId) {
+        entityManager.detach(entityManager.getReference(Video.class, videoId));
+    }
+
+    private static void add(Map<Integer, LongAdder> pending, Integer videoId, long delta) {
+        if (delta != 0) {
+            pending.computeIfAbsent(videoId, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static long sum(Map<Integer, LongAdder> pending, Integer videoId) {
+        LongAdder cell = pending.get(videoId);
+        return cell != null ? cell.sum() : 0;
+    }
+
+    // 先求和再减去同样的值，而不是sumThenReset：后者逐个单元清零，与并发累加交错时会丢失增量
+    private static long drain(Map<Integer, LongAdder> pending, Integer videoId) {
+        LongAdder cell = pending.get(videoId);
+        if (cell == null) {
+            return 0;
+        }
+        long value = cell.sum();
+        if (value != 0) {
+            cell.add(-value);
+        }
+        return value;
+    }
+}
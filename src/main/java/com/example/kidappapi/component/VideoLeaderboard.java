@@ -0,0 +1,244 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.repository.VideoRepository;
+import com.example.kidappapi.util.RebuildableReference;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热门视频排行榜
+ * 按点赞数降序（相同时按ID降序）维护全局和各类型的跳表，点赞/取消点赞时在事务提交后增量更新，
+ * 并定时从数据库校准，热门视频分页直接从内存读取视频ID。
+ * 跳表不支持按名次定位，取一页需要从头跳过offset个元素，因此只服务偏移量不超过
+ * video.leaderboard.max-offset的分页，更深的分页由调用方回退到数据库查询
+ */
+@Component
+public class VideoLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoLeaderboard.class);
+
+    private final VideoRepository videoRepository;
+    private final VideoCounterBuffer videoCounterBuffer;
+    private final long maxOffset;
+
+    // 校准完成前为null，此时调用方应回退到数据库查询
+    private final RebuildableReference<Board> board = new RebuildableReference<>();
+
+    @Autowired
+    public VideoLeaderboard(
+            VideoRepository videoRepository,
+            VideoCounterBuffer videoCounterBuffer,
+            @Value("${video.leaderboard.max-offset:10000}") long maxOffset) {
+        this.videoRepository = videoRepository;
+        this.videoCounterBuffer = videoCounterBuffer;
+        this.maxOffset = maxOffset;
+    }
+
+    /**
+     * 排行榜能否提供从offset开始的分页（已完成首次加载且偏移量不超过上限）
+     */
+    public boolean canServe(long offset) {
+        return board.get() != null && offset <= maxOffset;
+    }
+
+    /**
+     * 获取排行榜中的一页视频ID，耗时O(offset + size)，offset超过上限时返回空列表
+     * @param type 视频类型，为null时查询全局排行榜
+     */
+    public List<Integer> getPage(Video.VideoType type, long offset, int size) {
+        List<Integer> videoIds = new ArrayList<>(size);
+        Board current = board.get();
+        if (current == null || offset > maxOffset) {
+            return videoIds;
+        }
+
+        Iterator<Rank> iterator = current.rankingOf(type).iterator();
+        for (long skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (videoIds.size() < size && iterator.hasNext()) {
+            videoIds.add(iterator.next().videoId);
+        }
+        return videoIds;
+    }
+
+    /**
+     * 获取排行榜中的视频总数
+     * @param type 视频类型，为null时查询全局排行榜
+     */
+    public long size(Video.VideoType type) {
+        Board current = board.get();
+        if (current == null) {
+            return 0;
+        }
+        return type == null ? current.ranks.size() : current.typeSizes.get(type).get();
+    }
+
+    /**
+     * 新增或更新视频（保存、修改视频时调用，事务提交后生效）
+     */
+    public void put(Video video) {
+        if (video.getId() == null || video.getType() == null) {
+            return;
+        }
+        Integer videoId = video.getId();
+        Video.VideoType type = video.getType();
+        long likesCount = nullToZero(video.getLikesCount());
+        TransactionCallbacks.afterCommit(() -> board.apply(current -> current.put(videoId, type, likesCount)));
+    }
+
+    /**
+     * 移除视频（删除视频时调用，事务提交后生效）
+     */
+    public void remove(Integer videoId) {
+        TransactionCallbacks.afterCommit(() -> board.apply(current -> current.replace(current.ranks.get(videoId), null)));
+    }
+
+    /**
+     * 调整视频点赞数（点赞/取消点赞时调用，事务提交后生效）
+     */
+    public void adjustLikes(Integer videoId, int delta) {
+        TransactionCallbacks.afterCommit(() -> board.apply(current -> current.adjustLikes(videoId, delta)));
+    }
+
+    /**
+     * 启动完成后首次加载排行榜
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 定时从数据库重建排行榜，校准增量更新可能产生的偏差
+     * 开始时记下未写回的点赞增量并开始记录增量更新，重建完成后重放期间的更新再替换，
+     * 期间的更新不会丢失；开始后恰好写回数据库的增量可能被计入两次，由下次校准修正
+     */
+    @Scheduled(initialDelayString = "${video.leaderboard.reconcile-interval:300000}",
+            fixedDelayString = "${video.leaderboard.reconcile-interval:300000}")
+    public void reconcile() {
+        try {
+            board.rebuild(videoCounterBuffer::getPendingLikesSnapshot, this::load);
+        } catch (RuntimeException e) {
+            logger.error("热门视频排行榜重建失败: {}", e.getMessage());
+        }
+    }
+
+    private Board load(Map<Integer, Long> pendingLikes) {
+        Board rebuilt = new Board();
+        for (Object[] row : videoRepository.findAllLikesCounts()) {
+            Integer videoId = (Integer) row[0];
+            Video.VideoType type = (Video.VideoType) row[1];
+            if (type == null) {
+                continue;
+            }
+            long likes = Math.max(0, nullToZero((Integer) row[2]) + pendingLikes.getOrDefault(videoId, 0L));
+            rebuilt.replace(null, new Rank(videoId, type, likes));
+        }
+        return rebuilt;
+    }
+
+    private static long nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class Board {
+        private final Map<Integer, Rank> ranks = new ConcurrentHashMap<>();
+        private final NavigableSet<Rank> global = new ConcurrentSkipListSet<>();
+        private final Map<Video.VideoType, NavigableSet<Rank>> byType = new EnumMap<>(Video.VideoType.class);
+        private final Map<Video.VideoType, AtomicInteger> typeSizes = new EnumMap<>(Video.VideoType.class);
+
+        private Board() {
+            for (Video.VideoType type : Video.VideoType.values()) {
+                byType.put(type, new ConcurrentSkipListSet<>());
+                typeSizes.put(type, new AtomicInteger());
+            }
+        }
+
+        private NavigableSet<Rank> rankingOf(Video.VideoType type) {
+            return type == null ? global : byType.get(type);
+        }
+
+        // 已在排行榜中的视频保留当前点赞数（包含未写回的增量），只更新类型
+        private void put(Integer videoId, Video.VideoType type, long likesCount) {
+            Rank old = ranks.get(videoId);
+            replace(old, new Rank(videoId, type, old != null ? old.likes : likesCount));
+        }
+
+        private void adjustLikes(Integer videoId, int delta) {
+            Rank old = ranks.get(videoId);
+            if (old != null) {
+                replace(old, new Rank(videoId, old.type, Math.max(0, old.likes + delta)));
+            }
+        }
+
+        // 用新排名替换旧排名，old或updated为null分别表示新增或删除
+        private void replace(Rank old, Rank updated) {
+            if (old != null) {
+                global.remove(old);
+                byType.get(old.type).remove(old);
+                typeSizes.get(old.type).decrementAndGet();
+                ranks.remove(old.videoId);
+            }
+            if (updated != null) {
+                global.add(updated);
+                byType.get(updated.type).add(updated);
+                typeSizes.get(updated.type).incrementAndGet();
+                ranks.put(updated.videoId, updated);
+            }
+        }
+    }
+
+    private static final class Rank implements Comparable<Rank> {
+        private final int videoId;
+        private final Video.VideoType type;
+        private final long likes;
+
+        private Rank(int videoId, Video.VideoType type, long likes) {
+            this.videoId = videoId;
+            this.type = type;
+            this.likes = likes;
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            int byLikes = Long.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Integer.compare(other.videoId, videoId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Rank)) {
+                return false;
+            }
+            Rank that = (Rank) o;
+            return videoId == that.videoId && likes == that.likes;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * videoId + Long.hashCode(likes);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.repository.VideoRepository;
+import com.example.kidappapi.util.RebuildableReference;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 视频标题倒排索引
+ * 标题按字符二元组（中文按相邻两字，单字查询按单字）切分，每种视频类型维护一份倒排表，
+ * 查询时取各词项倒排表的交集，再按子串匹配校验，结果与 LIKE '%title%' 一致（忽略大小写），
+ * 保存/修改/删除视频时在事务提交后增量更新，并定时从数据库校准
+ */
+@Component
+public class VideoSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoSearchIndex.class);
+
+    private final VideoRepository videoRepository;
+
+    // 校准完成前为null，此时调用方应回退到数据库查询
+    private final RebuildableReference<Index> index = new RebuildableReference<>();
+
+    @Autowired
+    public VideoSearchIndex(VideoRepository videoRepository) {
+        this.videoRepository = videoRepository;
+    }
+
+    /**
+     * 索引是否已完成首次加载
+     */
+    public boolean isReady() {
+        return index.get() != null;
+    }
+
+    /**
+     * 按标题搜索视频，返回按相关度排序的前limit个匹配视频ID和匹配总数
+     * 相关度：完全匹配 > 前缀匹配 > 匹配位置越靠前越好 > 标题越短越好 > ID越大越好
+     * @param type 视频类型，为null时搜索所有类型
+     * @param limit 需要的条数（分页时为offset + size），只保留这么多条参与排序
+     */
+    public Result search(Video.VideoType type, String title, int limit) {
+        Index current = index.get();
+        String query = normalize(title);
+        if (current == null || query.isEmpty() || limit <= 0) {
+            return new Result(new ArrayList<>(), 0);
+        }
+
+        // 堆顶为已保留结果中相关度最低的一条，新匹配优于堆顶时替换
+        PriorityQueue<Match> top = new PriorityQueue<>(Collections.reverseOrder());
+        int[] total = new int[1];
+        Consumer<Match> sink = match -> {
+            total[0]++;
+            if (top.size() < limit) {
+                top.add(match);
+            } else if (match.compareTo(top.peek()) < 0) {
+                top.poll();
+                top.add(match);
+            }
+        };
+        if (type != null) {
+            current.collect(type, query, sink);
+        } else {
+            for (Video.VideoType each : Video.VideoType.values()) {
+                current.collect(each, query, sink);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(top);
+        Collections.sort(matches);
+        List<Integer> videoIds = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            videoIds.add(match.videoId);
+        }
+        return new Result(videoIds, total[0]);
+    }
+
+    /**
+     * 新增或更新视频标题（保存、修改视频时调用，事务提交后生效）
+     */
+    public void put(Video video) {
+        if (video.getId() == null || video.getType() == null || video.getTitle() == null) {
+            return;
+        }
+        Integer videoId = video.getId();
+        Video.VideoType type = video.getType();
+        String title = video.getTitle();
+        TransactionCallbacks.afterCommit(() -> index.apply(current -> {
+            current.remove(videoId);
+            current.add(videoId, type, title);
+        }));
+    }
+
+    /**
+     * 移除视频（删除视频时调用，事务提交后生效）
+     */
+    public void remove(Integer videoId) {
+        TransactionCallbacks.afterCommit(() -> index.apply(current -> current.remove(videoId)));
+    }
+
+    /**
+     * 启动完成后首次加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 定时从数据库重建索引，校准增量更新可能遗漏的变更（如直接修改数据库）
+     * 重建期间的增量更新会在新索引上重放后再替换，不会丢失
+     */
+    @Scheduled(initialDelayString = "${video.search.reconcile-interval:600000}",
+            fixedDelayString = "${video.search.reconcile-interval:600000}")
+    public void reconcile() {
+        try {
+            index.rebuild(this::load);
+        } catch (RuntimeException e) {
+            logger.error("视频标题索引重建失败: {}", e.getMessage());
+        }
+    }
+
+    private Index load() {
+        Index rebuilt = new Index();
+        for (Object[] row : videoRepository.findAllTitles()) {
+            Integer videoId = (Integer) row[0];
+            Video.VideoType type = (Video.VideoType) row[1];
+            String title = (String) row[2];
+            if (type == null || title == null) {
+                continue;
+            }
+            rebuilt.add(videoId, type, title);
+        }
+        return rebuilt;
+    }
+
+    // 统一大小写，与数据库默认排序规则下 LIKE 的忽略大小写行为一致
+    private static String normalize(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    // 切分为相邻字符二元组，长度为1时返回单字
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text.length() == 1) {
+            tokens.add(text);
+            return tokens;
+        }
+        for (int i = 0; i + 1 < text.length(); i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+        return tokens;
+    }
+
+    private static final class Index {
+        private final Map<Integer, Doc> docs = new ConcurrentHashMap<>();
+        private final Map<Video.VideoType, Map<String, Set<Integer>>> postings = new EnumMap<>(Video.VideoType.class);
+
+        private Index() {
+            for (Video.VideoType type : Video.VideoType.values()) {
+                postings.put(type, new ConcurrentHashMap<>());
+            }
+        }
+
+        private void add(Integer videoId, Video.VideoType type, String title) {
+            Doc doc = new Doc(type, normalize(title));
+            docs.put(videoId, doc);
+            Map<String, Set<Integer>> typePostings = postings.get(type);
+            for (String token : doc.tokens()) {
+                typePostings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(videoId);
+            }
+        }
+
+        private void remove(Integer videoId) {
+            Doc doc = docs.remove(videoId);
+            if (doc == null) {
+                return;
+            }
+            Map<String, Set<Integer>> typePostings = postings.get(doc.type);
+            for (String token : doc.tokens()) {
+                Set<Integer> ids = typePostings.get(token);
+                if (ids != null) {
+                    ids.remove(videoId);
+                    if (ids.isEmpty()) {
+                        typePostings.remove(token, ids);
+                    }
+                }
+            }
+        }
+
+        // 从最短的倒排表出发逐个校验，避免构造中间交集
+        private void collect(Video.VideoType type, String query, Consumer<Match> matches) {
+            Map<String, Set<Integer>> typePostings = postings.get(type);
+            List<Set<Integer>> lists = new ArrayList<>();
+            for (String token : tokenize(query)) {
+                Set<Integer> ids = typePostings.get(token);
+                if (ids == null) {
+                    return;
+                }
+                lists.add(ids);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            Set<Integer> shortest = lists.get(0);
+            for (Integer videoId : shortest) {
+                Doc doc = docs.get(videoId);
+                if (doc == null || doc.type != type) {
+                    continue;
+                }
+                int position = doc.title.indexOf(query);
+                if (position >= 0) {
+                    matches.accept(new Match(videoId, doc.title.length() == query.length(), position, doc.title.length()));
+                }
+            }
+        }
+    }
+
+    /**
+     * 搜索结果：按相关度排序的前若干个视频ID和匹配总数
+     */
+    public static final class Result {
+        private final List<Integer> videoIds;
+        private final int total;
+
+        private Result(List<Integer> videoIds, int total) {
+            this.videoIds = videoIds;
+            this.total = total;
+        }
+
+        public List<Integer> getVideoIds() {
+            return videoIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Doc {
+        private final Video.VideoType type;
+        private final String title;
+
+        private Doc(Video.VideoType type, String title) {
+            this.type = type;
+            this.title = title;
+        }
+
+        // 同时索引单字和二元组，使单字查询和多字查询都能命中
+        private Set<String> tokens() {
+            Set<String> tokens = new LinkedHashSet<>();
+            for (int i = 0; i < title.length(); i++) {
+                tokens.add(title.substring(i, i + 1));
+                if (i + 1 < title.length()) {
+                    tokens.add(title.substring(i, i + 2));
+                }
+            }
+            return tokens;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final int videoId;
+        private final boolean exact;
+        private final int position;
+        private final int length;
+
+        private Match(int videoId, boolean exact, int position, int length) {
+            this.videoId = videoId;
+            this.exact = exact;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (exact != other.exact) {
+                return exact ? -1 : 1;
+            }
+            int byPosition = Integer.compare(position, other.position);
+            if (byPosition != 0) {
+                return byPosition;
+            }
+            int byLength = Integer.compare(length, other.length);
+            return byLength != 0 ? byLength : Integer.compare(other.videoId, videoId);
+        }
+    }
+}
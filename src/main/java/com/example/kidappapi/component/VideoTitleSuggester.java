@@ -0,0 +1,239 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.dto.VideoSuggestion;
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.repository.VideoRepository;
+import com.example.kidappapi.util.RebuildableReference;
+import com.example.kidappapi.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 视频标题前缀联想
+ * 标题（忽略大小写）组成前缀树，每个节点缓存该前缀下点赞数最高的前K个标题，
+ * 查询只需沿前缀走到对应节点，耗时只与前缀长度有关，与视频总数无关。
+ * 保存/修改/删除视频时在事务提交后增量更新，点赞数变化和删除造成的名额空缺由定时重建校准
+ */
+@Component
+public class VideoTitleSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoTitleSuggester.class);
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final VideoRepository videoRepository;
+    private final VideoCounterBuffer videoCounterBuffer;
+    private final int topK;
+
+    // 重建完成前为null，此时联想结果为空
+    private final RebuildableReference<Trie> trie = new RebuildableReference<>();
+
+    @Autowired
+    public VideoTitleSuggester(
+            VideoRepository videoRepository,
+            VideoCounterBuffer videoCounterBuffer,
+            @Value("${video.suggest.top-k:10}") int topK) {
+        this.videoRepository = videoRepository;
+        this.videoCounterBuffer = videoCounterBuffer;
+        this.topK = topK;
+    }
+
+    /**
+     * 获取以prefix开头的标题，按点赞数降序（相同时按ID降序），最多返回limit条（不超过top-k）
+     */
+    public List<VideoSuggestion> suggest(String prefix, int limit) {
+        List<VideoSuggestion> suggestions = new ArrayList<>();
+        Trie current = trie.get();
+        String key = normalize(prefix);
+        if (current == null || key.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+
+        Node node = current.root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return suggestions;
+        }
+
+        Entry[] top = node.top;
+        for (int i = 0; i < top.length && suggestions.size() < limit; i++) {
+            suggestions.add(new VideoSuggestion(top[i].videoId, top[i].title, top[i].likes));
+        }
+        return suggestions;
+    }
+
+    /**
+     * 新增或更新视频标题（保存、修改视频时调用，事务提交后生效），更新时沿用已有的点赞数
+     */
+    public void put(Video video) {
+        if (video.getId() == null || video.getTitle() == null) {
+            return;
+        }
+        Integer videoId = video.getId();
+        String title = video.getTitle();
+        long likesCount = nullToZero(video.getLikesCount());
+        TransactionCallbacks.afterCommit(() -> trie.apply(current -> {
+            Entry old = current.entries.get(videoId);
+            long likes = old != null ? old.likes : likesCount;
+            if (old != null) {
+                current.remove(old);
+            }
+            current.add(new Entry(videoId, title, likes));
+        }));
+    }
+
+    /**
+     * 移除视频（删除视频时调用，事务提交后生效）
+     */
+    public void remove(Integer videoId) {
+        TransactionCallbacks.afterCommit(() -> trie.apply(current -> {
+            Entry old = current.entries.get(videoId);
+            if (old != null) {
+                current.remove(old);
+            }
+        }));
+    }
+
+    /**
+     * 启动完成后首次构建前缀树
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定时从数据库重建前缀树，刷新点赞数排序
+     * 重建期间的增量更新会在新前缀树上重放后再替换，不会丢失
+     */
+    @Scheduled(initialDelayString = "${video.suggest.rebuild-interval:300000}",
+            fixedDelayString = "${video.suggest.rebuild-interval:300000}")
+    public void rebuild() {
+        try {
+            trie.rebuild(this::load);
+        } catch (RuntimeException e) {
+            logger.error("视频标题联想前缀树重建失败: {}", e.getMessage());
+        }
+    }
+
+    private Trie load() {
+        Trie rebuilt = new Trie(topK);
+        for (Object[] row : videoRepository.findAllTitles()) {
+            Integer videoId = (Integer) row[0];
+            String title = (String) row[2];
+            if (title == null) {
+                continue;
+            }
+            long likes = Math.max(0, nullToZero((Integer) row[3]) + videoCounterBuffer.getPendingLikes(videoId));
+            rebuilt.add(new Entry(videoId, title, likes));
+        }
+        return rebuilt;
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class Trie {
+        private final int topK;
+        private final Node root = new Node();
+        private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+        private Trie(int topK) {
+            this.topK = topK;
+        }
+
+        private void add(Entry entry) {
+            entries.put(entry.videoId, entry);
+            Node node = root;
+            for (int i = 0; i < entry.key.length(); i++) {
+                node = node.children.computeIfAbsent(entry.key.charAt(i), c -> new Node());
+                node.offer(entry, topK);
+            }
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.videoId);
+            Node node = root;
+            for (int i = 0; i < entry.key.length() && node != null; i++) {
+                node = node.children.get(entry.key.charAt(i));
+                if (node != null) {
+                    node.discard(entry.videoId);
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>(4);
+        // 写时复制，读取无需加锁
+        private volatile Entry[] top = EMPTY;
+
+        // 按排序插入，超出K个时丢弃最后一个
+        private void offer(Entry entry, int topK) {
+            Entry[] current = top;
+            int position = 0;
+            while (position < current.length && current[position].ranksBefore(entry)) {
+                position++;
+            }
+            if (position >= topK) {
+                return;
+            }
+            int length = Math.min(current.length + 1, topK);
+            Entry[] updated = new Entry[length];
+            System.arraycopy(current, 0, updated, 0, position);
+            updated[position] = entry;
+            System.arraycopy(current, position, updated, position + 1, length - position - 1);
+            top = updated;
+        }
+
+        private void discard(Integer videoId) {
+            Entry[] current = top;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].videoId == videoId) {
+                    Entry[] updated = Arrays.copyOf(current, current.length - 1);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    top = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final int videoId;
+        private final String title;
+        private final String key;
+        private final long likes;
+
+        private Entry(int videoId, String title, long likes) {
+            this.videoId = videoId;
+            this.title = title;
+            this.key = normalize(title);
+            this.likes = likes;
+        }
+
+        private boolean ranksBefore(Entry other) {
+            return likes != other.likes ? likes > other.likes : videoId > other.videoId;
+        }
+    }
+}
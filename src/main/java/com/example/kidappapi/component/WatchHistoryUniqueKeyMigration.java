@@ -0,0 +1,76 @@
+package com.example.kidappapi.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * watch_history表(user_id, video_id)唯一索引迁移
+ * 进度写入依赖该索引做 INSERT ... ON DUPLICATE KEY UPDATE；表中已有重复记录时
+ * ddl-auto=update创建索引会失败且只记录日志，之后的写入会继续产生重复记录。
+ * 启动时检查索引，缺失则只保留每个用户每个视频最新的一条记录后创建索引
+ */
+@Component
+public class WatchHistoryUniqueKeyMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchHistoryUniqueKeyMigration.class);
+
+    static final String INDEX_NAME = "uk_watch_history_user_video";
+
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.tables "
+            + "WHERE table_schema = DATABASE() AND table_name = 'watch_history'";
+
+    private static final String INDEX_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.statistics "
+            + "WHERE table_schema = DATABASE() AND table_name = 'watch_history' AND index_name = ?";
+
+    // 保留观看时间最新的记录，观看时间相同时保留ID最大的
+    private static final String DEDUPLICATE_SQL = "DELETE older FROM watch_history older "
+            + "JOIN watch_history newer ON older.user_id = newer.user_id AND older.video_id = newer.video_id "
+            + "AND (older.watched_at < newer.watched_at "
+            + "OR (older.watched_at = newer.watched_at AND older.id < newer.id))";
+
+    private static final String ADD_INDEX_SQL = "ALTER TABLE watch_history ADD CONSTRAINT " + INDEX_NAME
+            + " UNIQUE (user_id, video_id)";
+
+    // 去重和建索引之间可能有其他节点插入新的重复记录，此时重新去重
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public WatchHistoryUniqueKeyMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (count(TABLE_EXISTS_SQL) == 0) {
+            // 新库由Hibernate建表，建表语句中已包含唯一约束
+            return;
+        }
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            if (count(INDEX_EXISTS_SQL, INDEX_NAME) > 0) {
+                return;
+            }
+            int removed = jdbcTemplate.update(DEDUPLICATE_SQL);
+            try {
+                jdbcTemplate.execute(ADD_INDEX_SQL);
+                logger.info("watch_history已创建唯一索引{}，删除重复记录{}条", INDEX_NAME, removed);
+                return;
+            } catch (DataAccessException e) {
+                logger.warn("watch_history创建唯一索引失败（第{}次）: {}", attempt, e.getMessage());
+            }
+        }
+        throw new IllegalStateException("watch_history唯一索引" + INDEX_NAME + "创建失败");
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.kidappapi.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 观看进度心跳写合并缓冲
+ * 播放器每隔几秒上报一次进度，同一用户同一视频只保留最新一次上报，
+ * 定时以批量 INSERT ... ON DUPLICATE KEY UPDATE 写入watch_history表
+ */
+@Component
+@DependsOn("watchHistoryUniqueKeyMigration")
+public class WatchProgressIngestBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchProgressIngestBuffer.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO watch_history (user_id, video_id, progress, watched_at) "
+            + "VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE progress = VALUES(progress), watched_at = VALUES(watched_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // (用户ID, 视频ID) -> 最新一次上报的进度
+    private final Map<ProgressKey, PendingProgress> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WatchProgressIngestBuffer(
+            JdbcTemplate jdbcTemplate,
+            @Value("${watch-history.ingest.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 是否启用进度写合并
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一次进度上报，覆盖该用户该视频尚未写入的旧进度
+     */
+    public Date submit(Integer userId, Integer videoId, Integer progress) {
+        Date watchedAt = new Date();
+        pending.put(new ProgressKey(userId, videoId), new PendingProgress(progress != null ? progress : 0, watchedAt));
+        return watchedAt;
+    }
+
+    /**
+     * 获取尚未写入的进度，没有时返回null
+     */
+    public Integer getPendingProgress(Integer userId, Integer videoId) {
+        PendingProgress progress = pending.get(new ProgressKey(userId, videoId));
+        return progress != null ? progress.progress : null;
+    }
+
+    /**
+     * 丢弃尚未写入的进度（删除观看历史时调用，避免被重新写入）
+     * 与flush互斥：进行中的批量写入可能已取出该进度，等它写完后再返回，
+     * 调用方随后执行的删除语句一定排在这次写入之后
+     */
+    public synchronized void discard(Integer userId, Integer videoId) {
+        pending.remove(new ProgressKey(userId, videoId));
+    }
+
+    /**
+     * 定时批量写入最新进度
+     */
+    @Scheduled(fixedDelayString = "${watch-history.ingest.flush-interval:2000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 只移除本次取出的值，期间被新上报覆盖的条目留待下次写入
+        Map<ProgressKey, PendingProgress> drained = new HashMap<>();
+        for (Map.Entry<ProgressKey, PendingProgress> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>(drained.size());
+        for (Map.Entry<ProgressKey, PendingProgress> entry : drained.entrySet()) {
+            batchArgs.add(new Object[]{
+                    entry.getKey().userId,
+                    entry.getKey().videoId,
+                    entry.getValue().progress,
+                    new Timestamp(entry.getValue().watchedAt.getTime())
+            });
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batchArgs);
+        } catch (RuntimeException e) {
+            // 写入失败时放回缓冲区（不覆盖期间的新上报），等待下次重试
+            logger.error("观看进度批量写入失败，将在下次重试: {}", e.getMessage());
+            for (Map.Entry<ProgressKey, PendingProgress> entry : drained.entrySet()) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 应用关闭前写入所有剩余进度
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class ProgressKey {
+        private final Integer userId;
+        private final Integer videoId;
+
+        private ProgressKey(Integer userId, Integer videoId) {
+            this.userId = userId;
+            this.videoId = videoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProgressKey)) {
+                return false;
+            }
+            ProgressKey that = (ProgressKey) o;
+            return Objects.equals(userId, that.userId) && Objects.equals(videoId, that.videoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, videoId);
+        }
+    }
+
+    private static final class PendingProgress {
+        private final int progress;
+        private final Date watchedAt;
+
+        private PendingProgress(int progress, Date watchedAt) {
+            this.progress = progress;
+            this.watchedAt = watchedAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.kidappapi.config;
+
+import com.example.kidappapi.cache.BatchLoader;
+import com.example.kidappapi.cache.VideoCache;
+import com.example.kidappapi.model.entity.User;
+import com.example.kidappapi.model.entity.Video;
+import com.example.kidappapi.repository.UserRepository;
+import com.example.kidappapi.repository.VideoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 视频和用户按主键批量加载器配置
+ */
+@Configuration
+public class BatchLoaderConfig {
+
+    @Value("${batch-loader.window-millis:2}")
+    private long windowMillis;
+
+    @Value("${batch-loader.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${batch-loader.timeout:5000}")
+    private long timeoutMillis;
+
+    @Value("${batch-loader.query-threads:4}")
+    private int queryThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public BatchLoader<Integer, Video> videoBatchLoader(VideoRepository videoRepository) {
+        return new BatchLoader<>("video-batch-loader", ids -> {
+            Map<Integer, Video> videos = new HashMap<>();
+            for (Video video : videoRepository.findAllById(ids)) {
+                videos.put(video.getId(), video);
+            }
+            return videos;
+        }, VideoCache::copyOf, windowMillis, maxBatchSize, timeoutMillis, queryThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public BatchLoader<Long, User> userBatchLoader(UserRepository userRepository) {
+        return new BatchLoader<>("user-batch-loader", ids -> {
+            Map<Long, User> users = new HashMap<>();
+            for (User user : userRepository.findAllById(ids)) {
+                users.put(user.getUserId(), user);
+            }
+            return users;
+        }, BatchLoaderConfig::copyOf, windowMillis, maxBatchSize, timeoutMillis, queryThreads);
+    }
+
+    private static User copyOf(User source) {
+        User user = new User();
+        user.setUserId(source.getUserId());
+        user.setUsername(source.getUsername());
+        user.setPassword(source.getPassword());
+        user.setAvatarUrl(source.getAvatarUrl());
+        user.setBackgroundUrl(source.getBackgroundUrl());
+        user.setEmail(source.getEmail());
+        user.setSignature(source.getSignature());
+        user.setNickname(source.getNickname());
+        user.setCreateTime(source.getCreateTime());
+        user.setUpdateTime(source.getUpdateTime());
+        return user;
+    }
+}
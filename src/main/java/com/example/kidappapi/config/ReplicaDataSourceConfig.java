@@ -0,0 +1,69 @@
+package com.example.kidappapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 只读副本数据源配置
+ * 启用后主库连接池使用spring.datasource.*，副本连接池使用datasource.replica.*，
+ * 标记为只读的事务（@Transactional(readOnly = true)）在副本上执行
+ * 需要关闭spring.jpa.open-in-view，否则同一请求内只读事务之后的写事务会沿用副本连接
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    // 连接池只作为路由目标，不参与按类型注入，由容器负责关闭
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool() {
+        return primaryDataSourceProperties().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaPool() {
+        HikariDataSource pool = replicaDataSourceProperties().initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        DataSource primaryPool = primaryPool();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryPool);
+        targets.put(ReplicaRoutingDataSource.REPLICA, replicaPool());
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryPool);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.kidappapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 读写分离路由数据源：只读事务路由到副本，其余（读写事务、无事务）路由到主库
+ * 需要包装在LazyConnectionDataSourceProxy中使用，保证在事务只读标记设置之后才获取物理连接
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.kidappapi.config;
+
+import com.example.kidappapi.cache.VideoCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 视频缓存配置，启用Redis二级缓存时订阅其他节点发出的缓存失效通知
+ */
+@Configuration
+@ConditionalOnProperty(name = "video.cache.redis.enabled", havingValue = "true")
+public class VideoCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer videoCacheListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            VideoCache videoCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> videoCache.evictLocal(
+                        Integer.valueOf(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(VideoCache.INVALIDATE_CHANNEL));
+        return container;
+    }
+}
@@ -2,17 +2,24 @@ package com.example.kidappapi.controller;
 
 import com.example.kidappapi.model.dto.ApiResponse;
 import com.example.kidappapi.model.dto.CommentDTO;
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.entity.Comment;
 import com.example.kidappapi.service.CommentService;
 import com.example.kidappapi.service.VideoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.validation.constraints.Min;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,7 @@ import java.util.Optional;
  * 评论控制器，提供RESTful API接口
  */
 @RestController
+@Validated
 @RequestMapping("/api/comments")
 public class CommentController {
 
@@ -64,33 +72,53 @@ public class CommentController {
     }
 
     /**
-     * 分页获取视频评论（包含用户信息）
+     * 分页获取视频评论（包含用户信息），传入cursor参数（第一页传空字符串）时使用游标分页，不返回总数；
+     * withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/videos/{videoId}/page")
-    public ResponseEntity<ApiResponse<Page<CommentDTO>>> getVideoCommentsPaged(
+    public ResponseEntity<ApiResponse<?>> getVideoCommentsPaged(
             @PathVariable Integer videoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = CursorSlice.SIZE_MESSAGE) int size) {
         // 检查视频是否存在
         if (!videoService.findVideoById(videoId).isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error(404, "视频不存在"));
         }
 
+        if (cursor != null) {
+            CursorSlice.checkSize(size);
+            CursorSlice<CommentDTO> slice = commentService.getVideoCommentsByCursor(videoId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(slice));
+        }
+
         // 创建分页请求，按创建时间降序排序
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        if (!withTotal) {
+            Slice<CommentDTO> commentsSlice = commentService.getVideoCommentsSlice(videoId, pageRequest);
+            return ResponseEntity.ok(ApiResponse.success(commentsSlice));
+        }
         Page<CommentDTO> commentsPage = commentService.getVideoCommentsPaged(videoId, pageRequest);
         
         return ResponseEntity.ok(ApiResponse.success(commentsPage));
     }
 
     /**
-     * 获取评论详情
+     * 获取评论详情，支持ETag条件请求，未修改时在序列化前返回304
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Comment>> getCommentById(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse<Comment>> getCommentById(@PathVariable Integer id, WebRequest webRequest) {
         Optional<Comment> comment = commentService.findCommentById(id);
         if (comment.isPresent()) {
+            // ETag取评论内容字段的MD5摘要
+            String content = comment.get().getContent();
+            String eTag = "W/\"comment-" + id + "-"
+                    + DigestUtils.md5DigestAsHex((content != null ? content : "").getBytes(StandardCharsets.UTF_8)) + "\"";
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
             return ResponseEntity.ok(ApiResponse.success(comment.get()));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -105,7 +133,8 @@ public class CommentController {
     public ResponseEntity<ApiResponse<Comment>> updateComment(
             @PathVariable Integer id,
             @RequestBody Comment commentDetails) {
-        Optional<Comment> commentOptional = commentService.findCommentById(id);
+        // 读取后修改再写回，从主库读取
+        Optional<Comment> commentOptional = commentService.findCommentByIdOnPrimary(id);
         if (!commentOptional.isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error(404, "评论不存在"));
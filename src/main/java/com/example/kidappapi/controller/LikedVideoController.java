@@ -6,13 +6,20 @@ import com.example.kidappapi.service.LikedVideoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/liked-videos")
 public class LikedVideoController {
 
+    // 批量检查接口单次允许的最大视频数
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final LikedVideoService likedVideoService;
 
     @Autowired
@@ -64,13 +71,34 @@ public class LikedVideoController {
     }
 
     /**
-     * 获取用户点赞的所有视频
+     * 批量检查用户是否已点赞视频，返回已点赞的视频ID
+     */
+    @GetMapping("/users/{userId}/check")
+    public ResponseEntity<ApiResponse<Set<Integer>>> checkUserLikedVideos(
+            @PathVariable Integer userId,
+            @RequestParam List<Integer> videoIds) {
+        if (videoIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(400, "一次最多检查" + MAX_BATCH_SIZE + "个视频"));
+        }
+        Set<Integer> likedVideoIds = likedVideoService.getLikedVideoIds(userId, videoIds);
+        return ResponseEntity.ok(ApiResponse.success(likedVideoIds));
+    }
+
+    /**
+     * 获取用户点赞的所有视频，withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/users/{userId}")
-    public ResponseEntity<ApiResponse<Page<LikedVideo>>> getUserLikedVideos(
+    public ResponseEntity<ApiResponse<?>> getUserLikedVideos(
             @PathVariable Integer userId,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
+        if (!withTotal) {
+            Slice<LikedVideo> likedVideos = likedVideoService.getUserLikedVideosSlice(
+                    userId, PageRequest.of(page, size));
+            return ResponseEntity.ok(ApiResponse.success(likedVideos));
+        }
         Page<LikedVideo> likedVideos = likedVideoService.getUserLikedVideos(
                 userId, PageRequest.of(page, size));
         return ResponseEntity.ok(ApiResponse.success(likedVideos));
@@ -1,33 +1,51 @@
 package com.example.kidappapi.controller;
 
 import com.example.kidappapi.model.dto.ApiResponse;
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.dto.UserRegistrationRequest;
 import com.example.kidappapi.model.entity.User;
 import com.example.kidappapi.service.UserService;
 import com.example.kidappapi.service.VerificationCodeService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
 import java.util.Optional;
 
 /**
  * 用户控制器，提供RESTful API接口
  */
 @RestController
+@Validated
 @RequestMapping("/api/users")
 public class UserController {
 
     private final UserService userService;
     private final VerificationCodeService verificationCodeService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService, VerificationCodeService verificationCodeService) {
+    public UserController(UserService userService, VerificationCodeService verificationCodeService,
+                          ObjectMapper objectMapper) {
         this.userService = userService;
         this.verificationCodeService = verificationCodeService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -87,19 +105,40 @@ public class UserController {
     }
 
     /**
-     * 获取所有用户
+     * 获取所有用户，响应格式不变，但逐条查询并写出JSON，不在内存中组装完整列表
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        List<User> users = userService.findAllUsers();
+    public ResponseEntity<StreamingResponseBody> getAllUsers() {
+        // 在异步线程中执行，只读事务和数据库游标在写出期间保持打开
+        StreamingResponseBody body = this::writeAllUsers;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 游标分页获取用户（按ID降序，第一页cursor传空字符串），不返回总数
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorSlice<User>>> getUsersByCursor(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = CursorSlice.SIZE_MESSAGE) @Max(value = CursorSlice.MAX_SIZE, message = CursorSlice.SIZE_MESSAGE) int size) {
+        CursorSlice<User> users = userService.findUsersByCursor(cursor, size);
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
     /**
-     * 根据ID获取用户
+     * 根据ID获取用户，支持ETag/Last-Modified条件请求：
+     * 先只查询更新时间，未修改时直接返回304，不加载用户
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<User>> getUserById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<User>> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<Date> updateTime = userService.findUserUpdateTime(id);
+        if (updateTime.isPresent()) {
+            String eTag = "W/\"user-" + id + "-" + updateTime.get().getTime() + "\"";
+            if (webRequest.checkNotModified(eTag, updateTime.get().getTime())) {
+                return null;
+            }
+        }
+
         Optional<User> user = userService.findUserById(id);
         if (user.isPresent()) {
             return ResponseEntity.ok(ApiResponse.success(user.get()));
@@ -128,7 +167,8 @@ public class UserController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<User>> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
-        Optional<User> optionalUser = userService.findUserById(id);
+        // 读取后修改再整体写回，从主库读取，避免用从库的旧数据覆盖刚提交的修改
+        Optional<User> optionalUser = userService.findUserByIdOnPrimary(id);
         if (!optionalUser.isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error(404, "用户不存在"));
@@ -172,4 +212,36 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok(ApiResponse.success("用户已成功删除", null));
     }
+
+    /**
+     * 按ApiResponse的格式流式写出全部用户
+     */
+    private void writeAllUsers(OutputStream outputStream) throws IOException {
+        ApiResponse<Void> envelope = ApiResponse.success();
+        // 每条用户写出后不刷新，由缓冲区攒满后批量发送
+        ObjectWriter userWriter = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // 输出流由Spring在写出完成后刷新和关闭
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("code", envelope.getCode());
+            generator.writeStringField("message", envelope.getMessage());
+            generator.writeArrayFieldStart("data");
+            try {
+                userService.streamAllUsers(user -> {
+                    try {
+                        userWriter.writeValue(generator, user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("timestamp", envelope.getTimestamp());
+            generator.writeEndObject();
+        }
+    }
 } 
\ No newline at end of file
@@ -1,30 +1,46 @@
 package com.example.kidappapi.controller;
 
+import com.example.kidappapi.cache.ResponseBodyCache;
 import com.example.kidappapi.model.dto.ApiResponse;
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.VideoSuggestion;
+import com.example.kidappapi.model.dto.VideoSummary;
 import com.example.kidappapi.model.entity.Video;
 import com.example.kidappapi.service.VideoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.validation.constraints.Min;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * 视频控制器，提供RESTful API接口
  */
 @RestController
+@Validated
 @RequestMapping("/api/videos")
 public class VideoController {
 
     private final VideoService videoService;
+    private final ResponseBodyCache responseBodyCache;
 
     @Autowired
-    public VideoController(VideoService videoService) {
+    public VideoController(VideoService videoService, ResponseBodyCache responseBodyCache) {
         this.videoService = videoService;
+        this.responseBodyCache = responseBodyCache;
     }
 
     /**
@@ -38,23 +54,34 @@ public class VideoController {
     }
 
     /**
-     * 获取所有视频（分页）
+     * 获取所有视频（分页），withTotal=false时返回不含总数的Slice
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Video>>> getAllVideos(
+    public ResponseEntity<?> getAllVideos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Video> videos = videoService.findAllVideos(PageRequest.of(page, size));
-        return ResponseEntity.ok(ApiResponse.success(videos));
+        String cacheKey = ResponseBodyCache.VIDEO_CATALOG_PREFIX + "all:" + withTotal + ":" + page + ":" + size;
+        return cachedResponse(cacheKey, ifNoneMatch, () -> {
+            if (!withTotal) {
+                return ApiResponse.success(videoService.findAllVideosSlice(PageRequest.of(page, size)));
+            }
+            Page<VideoSummary> videos = videoService.findAllVideos(PageRequest.of(page, size));
+            return ApiResponse.success(videos);
+        });
     }
 
     /**
-     * 根据ID获取视频
+     * 根据ID获取视频，支持ETag条件请求，未修改时在序列化前返回304
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Video>> getVideoById(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse<Video>> getVideoById(@PathVariable Integer id, WebRequest webRequest) {
         Optional<Video> video = videoService.findVideoById(id);
         if (video.isPresent()) {
+            if (webRequest.checkNotModified(videoETag(video.get()))) {
+                return null;
+            }
             return ResponseEntity.ok(ApiResponse.success(video.get()));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -63,27 +90,48 @@ public class VideoController {
     }
 
     /**
-     * 根据类型获取视频
+     * 根据类型获取视频，withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/type/{type}")
-    public ResponseEntity<ApiResponse<Page<Video>>> getVideosByType(
+    public ResponseEntity<?> getVideosByType(
             @PathVariable Video.VideoType type,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Video> videos = videoService.findVideosByType(type, PageRequest.of(page, size));
-        return ResponseEntity.ok(ApiResponse.success(videos));
+        String cacheKey = ResponseBodyCache.VIDEO_CATALOG_PREFIX + "type:" + type + ":" + withTotal + ":" + page + ":" + size;
+        return cachedResponse(cacheKey, ifNoneMatch, () -> {
+            if (!withTotal) {
+                return ApiResponse.success(videoService.findVideosByTypeSlice(type, PageRequest.of(page, size)));
+            }
+            Page<VideoSummary> videos = videoService.findVideosByType(type, PageRequest.of(page, size));
+            return ApiResponse.success(videos);
+        });
     }
 
     /**
-     * 搜索视频
+     * 搜索视频，withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<Page<Video>>> searchVideos(
+    public ResponseEntity<ApiResponse<?>> searchVideos(
             @RequestParam(required = false) String title,
             @RequestParam(required = false) Video.VideoType type,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Video> videos;
+        if (!withTotal) {
+            Slice<VideoSummary> slice;
+            if (title != null) {
+                slice = videoService.searchVideosByTitleSlice(type, title, PageRequest.of(page, size));
+            } else if (type != null) {
+                slice = videoService.findVideosByTypeSlice(type, PageRequest.of(page, size));
+            } else {
+                slice = videoService.findAllVideosSlice(PageRequest.of(page, size));
+            }
+            return ResponseEntity.ok(ApiResponse.success(slice));
+        }
+
+        Page<VideoSummary> videos;
         if (title != null && type != null) {
             videos = videoService.searchVideosByTypeAndTitle(type, title, PageRequest.of(page, size));
         } else if (title != null) {
@@ -97,37 +145,80 @@ public class VideoController {
     }
 
     /**
-     * 获取热门视频
+     * 搜索框输入联想，按点赞数降序返回以prefix开头的视频标题
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<VideoSuggestion>>> suggestVideoTitles(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<VideoSuggestion> suggestions = videoService.suggestVideoTitles(prefix, limit);
+        return ResponseEntity.ok(ApiResponse.success(suggestions));
+    }
+
+    /**
+     * 获取热门视频，传入cursor参数（第一页传空字符串）时使用游标分页，不返回总数；
+     * withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/hot")
-    public ResponseEntity<ApiResponse<Page<Video>>> getHotVideos(
+    public ResponseEntity<?> getHotVideos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestParam(required = false) Video.VideoType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Page<Video> videos;
-        if (type != null) {
-            videos = videoService.findHotVideosByType(type, PageRequest.of(page, size));
-        } else {
-            videos = videoService.findHotVideos(PageRequest.of(page, size));
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = CursorSlice.SIZE_MESSAGE) int size) {
+        if (cursor != null) {
+            CursorSlice.checkSize(size);
+            CursorSlice<VideoSummary> slice = videoService.findHotVideosByCursor(type, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(slice));
         }
-        return ResponseEntity.ok(ApiResponse.success(videos));
+
+        String cacheKey = ResponseBodyCache.VIDEO_CATALOG_PREFIX + "hot:" + type + ":" + withTotal + ":" + page + ":" + size;
+        return cachedResponse(cacheKey, ifNoneMatch, () -> {
+            if (!withTotal) {
+                return ApiResponse.success(videoService.findHotVideosSlice(type, PageRequest.of(page, size)));
+            }
+            Page<VideoSummary> videos;
+            if (type != null) {
+                videos = videoService.findHotVideosByType(type, PageRequest.of(page, size));
+            } else {
+                videos = videoService.findHotVideos(PageRequest.of(page, size));
+            }
+            return ApiResponse.success(videos);
+        });
     }
 
     /**
-     * 获取最新视频
+     * 获取最新视频，传入cursor参数（第一页传空字符串）时使用游标分页，不返回总数；
+     * withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/latest")
-    public ResponseEntity<ApiResponse<Page<Video>>> getLatestVideos(
+    public ResponseEntity<?> getLatestVideos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestParam(required = false) Video.VideoType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Page<Video> videos;
-        if (type != null) {
-            videos = videoService.findLatestVideosByType(type, PageRequest.of(page, size));
-        } else {
-            videos = videoService.findLatestVideos(PageRequest.of(page, size));
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = CursorSlice.SIZE_MESSAGE) int size) {
+        if (cursor != null) {
+            CursorSlice.checkSize(size);
+            CursorSlice<VideoSummary> slice = videoService.findLatestVideosByCursor(type, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(slice));
         }
-        return ResponseEntity.ok(ApiResponse.success(videos));
+
+        String cacheKey = ResponseBodyCache.VIDEO_CATALOG_PREFIX + "latest:" + type + ":" + withTotal + ":" + page + ":" + size;
+        return cachedResponse(cacheKey, ifNoneMatch, () -> {
+            if (!withTotal) {
+                return ApiResponse.success(videoService.findLatestVideosSlice(type, PageRequest.of(page, size)));
+            }
+            Page<VideoSummary> videos;
+            if (type != null) {
+                videos = videoService.findLatestVideosByType(type, PageRequest.of(page, size));
+            } else {
+                videos = videoService.findLatestVideos(PageRequest.of(page, size));
+            }
+            return ApiResponse.success(videos);
+        });
     }
 
     /**
@@ -199,4 +290,24 @@ public class VideoController {
         videoService.decrementLikesCount(id);
         return ResponseEntity.ok(ApiResponse.success("取消点赞成功", null));
     }
+
+    // 点赞数和评论数通过原子UPDATE修改，不会更新updatedAt，因此一并计入ETag，也不使用Last-Modified
+    private static String videoETag(Video video) {
+        long updatedAt = video.getUpdatedAt() != null ? video.getUpdatedAt().getTime() : 0;
+        return "W/\"video-" + video.getId() + "-" + updatedAt + "-"
+                + video.getLikesCount() + "-" + video.getCommentsCount() + "\"";
+    }
+
+    // 返回缓存中序列化好的JSON，If-None-Match与ETag匹配时返回304
+    private ResponseEntity<?> cachedResponse(String cacheKey, String ifNoneMatch, Supplier<?> loader) {
+        ResponseBodyCache.CachedBody cached = responseBodyCache.get(cacheKey, loader);
+        if (cached.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getETag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(cached.getBody());
+    }
 } 
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.kidappapi.controller;
 
 import com.example.kidappapi.model.dto.ApiResponse;
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.dto.WatchHistoryDTO;
 import com.example.kidappapi.model.entity.WatchHistory;
 import com.example.kidappapi.service.VideoService;
@@ -8,21 +9,29 @@ import com.example.kidappapi.service.WatchHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.constraints.Min;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * 观看历史控制器，提供RESTful API接口
  */
 @RestController
+@Validated
 @RequestMapping("/api/watch-history")
 public class WatchHistoryController {
 
+    // 批量查询接口单次允许的最大视频数
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final WatchHistoryService watchHistoryService;
     private final VideoService videoService;
 
@@ -58,15 +67,28 @@ public class WatchHistoryController {
     }
 
     /**
-     * 分页获取用户观看历史（包含视频信息）
+     * 分页获取用户观看历史（包含视频信息），传入cursor参数（第一页传空字符串）时使用游标分页，不返回总数；
+     * withTotal=false时返回不含总数的Slice
      */
     @GetMapping("/users/{userId}/page")
-    public ResponseEntity<ApiResponse<Page<WatchHistoryDTO>>> getUserWatchHistoryPaged(
+    public ResponseEntity<ApiResponse<?>> getUserWatchHistoryPaged(
             @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = CursorSlice.SIZE_MESSAGE) int size) {
+        if (cursor != null) {
+            CursorSlice.checkSize(size);
+            CursorSlice<WatchHistoryDTO> slice = watchHistoryService.getUserWatchHistoryByCursor(userId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(slice));
+        }
+
         // 创建分页请求，按观看时间降序排序
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "watchedAt"));
+        if (!withTotal) {
+            Slice<WatchHistoryDTO> watchHistorySlice = watchHistoryService.getUserWatchHistorySlice(userId, pageRequest);
+            return ResponseEntity.ok(ApiResponse.success(watchHistorySlice));
+        }
         Page<WatchHistoryDTO> watchHistoryPage = watchHistoryService.getUserWatchHistoryPaged(userId, pageRequest);
         
         return ResponseEntity.ok(ApiResponse.success(watchHistoryPage));
@@ -117,6 +139,21 @@ public class WatchHistoryController {
         return ResponseEntity.ok(ApiResponse.success(progress));
     }
 
+    /**
+     * 批量获取用户观看视频的进度，返回视频ID到进度的映射，未观看过的视频不包含在内
+     */
+    @GetMapping("/users/{userId}/progress")
+    public ResponseEntity<ApiResponse<Map<Integer, Integer>>> getUserVideosProgress(
+            @PathVariable Integer userId,
+            @RequestParam List<Integer> videoIds) {
+        if (videoIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(400, "一次最多查询" + MAX_BATCH_SIZE + "个视频"));
+        }
+        Map<Integer, Integer> progress = watchHistoryService.getUserVideosProgress(userId, videoIds);
+        return ResponseEntity.ok(ApiResponse.success(progress));
+    }
+
     /**
      * 更新用户观看视频的进度
      */
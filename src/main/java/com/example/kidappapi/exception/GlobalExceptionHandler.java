@@ -16,6 +16,7 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.ConstraintViolationException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 全局异常处理器
@@ -88,6 +89,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ApiResponse.error(400, "数据完整性违反，可能是唯一约束或外键约束被破坏"), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * 处理分页游标无效异常
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ApiResponse<Void>> handleInvalidCursorException(InvalidCursorException ex) {
+        logger.error("分页游标无效: {}", ex.getMessage());
+        return new ResponseEntity<>(ApiResponse.error(400, ex.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * 处理实体未找到异常
      */
@@ -98,6 +109,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ApiResponse.error(404, ex.getMessage()), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * 处理密码哈希线程池繁忙（拒绝或等待超时）
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ApiResponse<Void>> handleRejectedExecutionException(RejectedExecutionException ex) {
+        logger.warn("请求被拒绝: {}", ex.getMessage());
+        return new ResponseEntity<>(ApiResponse.error(503, "服务繁忙，请稍后重试"), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * 处理所有其他未处理的异常
      */
@@ -0,0 +1,13 @@
+package com.example.kidappapi.exception;
+
+/**
+ * 分页游标格式错误或游标分页参数超出范围异常
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.kidappapi.model.dto;
+
+import com.example.kidappapi.exception.InvalidCursorException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果，不包含总数，通过nextCursor获取下一页
+ */
+public class CursorSlice<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 每页最大条数
+     */
+    public static final int MAX_SIZE = 100;
+
+    public static final String SIZE_MESSAGE = "每页条数必须在1到" + MAX_SIZE + "之间";
+
+    /**
+     * 本页数据
+     */
+    private List<T> content;
+
+    /**
+     * 本页条数
+     */
+    private int size;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasNext;
+
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private String nextCursor;
+
+    public CursorSlice() {
+    }
+
+    public CursorSlice(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = content.size();
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 检查游标分页的每页条数，超出范围时抛出InvalidCursorException（返回400）
+     * 用于同时支持偏移分页的接口：偏移分页保持原有的条数限制，只有游标分页限制上限
+     */
+    public static void checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new InvalidCursorException(SIZE_MESSAGE);
+        }
+    }
+
+    /**
+     * 由多查询一条的结果构建游标分页：超出size说明还有下一页，游标取本页最后一条记录
+     */
+    public static <T> CursorSlice<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (size < 1) {
+            throw new IllegalArgumentException(SIZE_MESSAGE);
+        }
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorSlice<>(content, hasNext, nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
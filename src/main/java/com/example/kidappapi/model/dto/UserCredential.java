@@ -0,0 +1,58 @@
+package com.example.kidappapi.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * 登录校验用的用户凭据，只包含ID、用户名、邮箱和密码
+ */
+public class UserCredential implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long userId;
+    private String username;
+    private String email;
+    private String password;
+
+    public UserCredential() {
+    }
+
+    public UserCredential(Long userId, String username, String email, String password) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
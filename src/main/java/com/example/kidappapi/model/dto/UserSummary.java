@@ -0,0 +1,53 @@
+package com.example.kidappapi.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * 用户展示信息（评论等内嵌用户资料时使用），不包含密码等敏感字段
+ */
+public class UserSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long userId;
+
+    /**
+     * 显示名称，没有昵称时为用户名
+     */
+    private String nickname;
+
+    private String avatarUrl;
+
+    public UserSummary() {
+    }
+
+    public UserSummary(Long userId, String nickname, String avatarUrl) {
+        this.userId = userId;
+        this.nickname = nickname;
+        this.avatarUrl = avatarUrl;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    public void setAvatarUrl(String avatarUrl) {
+        this.avatarUrl = avatarUrl;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.kidappapi.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * 视频标题联想结果
+ */
+public class VideoSuggestion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Integer videoId;
+    private String title;
+    private Long likesCount;
+
+    public VideoSuggestion() {
+    }
+
+    public VideoSuggestion(Integer videoId, String title, Long likesCount) {
+        this.videoId = videoId;
+        this.title = title;
+        this.likesCount = likesCount;
+    }
+
+    public Integer getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(Integer videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getLikesCount() {
+        return likesCount;
+    }
+
+    public void setLikesCount(Long likesCount) {
+        this.likesCount = likesCount;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.kidappapi.model.dto;
+
+import com.example.kidappapi.model.entity.Video;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 视频列表项，只包含列表展示需要的字段，不含描述和播放地址
+ * 由JPQL构造表达式直接创建，不进入持久化上下文，也不参与脏检查
+ */
+public class VideoSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Integer id;
+    private String title;
+    private String thumbnailUrl;
+    private Integer duration;
+    private Video.VideoType type;
+    private Integer likesCount;
+    private Integer commentsCount;
+    private Date createdAt;
+
+    public VideoSummary() {
+    }
+
+    public VideoSummary(Integer id, String title, String thumbnailUrl, Integer duration, Video.VideoType type,
+                        Integer likesCount, Integer commentsCount, Date createdAt) {
+        this.id = id;
+        this.title = title;
+        this.thumbnailUrl = thumbnailUrl;
+        this.duration = duration;
+        this.type = type;
+        this.likesCount = likesCount;
+        this.commentsCount = commentsCount;
+        this.createdAt = createdAt;
+    }
+
+    // 根据完整的视频实体构建列表项（视频来自缓存时使用）
+    public static VideoSummary of(Video video) {
+        return new VideoSummary(video.getId(), video.getTitle(), video.getThumbnailUrl(), video.getDuration(),
+                video.getType(), video.getLikesCount(), video.getCommentsCount(), video.getCreatedAt());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    public Video.VideoType getType() {
+        return type;
+    }
+
+    public void setType(Video.VideoType type) {
+        this.type = type;
+    }
+
+    public Integer getLikesCount() {
+        return likesCount;
+    }
+
+    public void setLikesCount(Integer likesCount) {
+        this.likesCount = likesCount;
+    }
+
+    public Integer getCommentsCount() {
+        return commentsCount;
+    }
+
+    public void setCommentsCount(Integer commentsCount) {
+        this.commentsCount = commentsCount;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Date;
  * 用户实体类，对应数据库中的users表
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 public class User implements Serializable {
 
     private static final long serialVersionUID = 1L;
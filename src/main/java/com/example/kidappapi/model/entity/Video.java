@@ -36,10 +36,11 @@ public class Video implements Serializable {
     @Column(nullable = false)
     private VideoType type;
 
-    @Column(name = "likes_count")
+    // 计数只通过原子UPDATE修改，保存实体时不覆盖
+    @Column(name = "likes_count", updatable = false)
     private Integer likesCount = 0;
 
-    @Column(name = "comments_count")
+    @Column(name = "comments_count", updatable = false)
     private Integer commentsCount = 0;
 
     @Temporal(TemporalType.TIMESTAMP)
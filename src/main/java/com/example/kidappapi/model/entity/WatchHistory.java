@@ -8,7 +8,8 @@ import java.util.Date;
  * 观看历史实体类，对应数据库中的watch_history表
  */
 @Entity
-@Table(name = "watch_history")
+@Table(name = "watch_history",
+        uniqueConstraints = @UniqueConstraint(name = "uk_watch_history_user_video", columnNames = {"user_id", "video_id"}))
 public class WatchHistory implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -3,9 +3,13 @@ package com.example.kidappapi.repository;
 import com.example.kidappapi.model.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -17,6 +21,16 @@ public interface CommentRepository extends JpaRepository<Comment, Integer> {
     // 分页查询视频评论
     Page<Comment> findByVideoId(Integer videoId, Pageable pageable);
     
+    // 分页查询视频评论（Slice，不查询总数）
+    Slice<Comment> findSliceByVideoId(Integer videoId, Pageable pageable);
+    
+    // 游标分页查询视频评论，按创建时间、ID降序，不查询总数
+    @Query("SELECT c FROM Comment c WHERE c.videoId = :videoId "
+            + "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) "
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findByVideoIdBefore(@Param("videoId") Integer videoId, @Param("createdAt") Date createdAt,
+                                      @Param("id") Integer id, Pageable pageable);
+    
     // 根据用户ID查询评论
     List<Comment> findByUserId(Integer userId);
     
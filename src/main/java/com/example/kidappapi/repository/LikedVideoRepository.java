@@ -3,9 +3,14 @@ package com.example.kidappapi.repository;
 import com.example.kidappapi.model.entity.LikedVideo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +21,17 @@ public interface LikedVideoRepository extends JpaRepository<LikedVideo, Integer>
     // 获取用户点赞的所有视频ID
     Page<LikedVideo> findByUserId(Integer userId, Pageable pageable);
     
+    // 分页获取用户点赞记录（Slice，不查询总数）
+    Slice<LikedVideo> findSliceByUserId(Integer userId, Pageable pageable);
+    
     // 删除用户的点赞记录
     void deleteByUserIdAndVideoId(Integer userId, Integer videoId);
+    
+    // 获取用户点赞的所有视频ID（只查询ID列）
+    @Query("SELECT l.videoId FROM LikedVideo l WHERE l.userId = :userId")
+    List<Integer> findVideoIdsByUserId(@Param("userId") Integer userId);
+    
+    // 在给定视频ID中查询用户已点赞的视频ID
+    @Query("SELECT l.videoId FROM LikedVideo l WHERE l.userId = :userId AND l.videoId IN :videoIds")
+    List<Integer> findLikedVideoIds(@Param("userId") Integer userId, @Param("videoIds") Collection<Integer> videoIds);
 } 
\ No newline at end of file
@@ -1,10 +1,22 @@
 package com.example.kidappapi.repository;
 
+import com.example.kidappapi.model.dto.UserCredential;
+import com.example.kidappapi.model.dto.UserSummary;
 import com.example.kidappapi.model.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 用户数据访问层
@@ -41,4 +53,64 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 判断邮箱是否已存在
      */
     boolean existsByEmail(String email);
+    
+    /**
+     * 只查询用户的更新时间（用于条件请求校验，避免加载整个用户）
+     */
+    @Query("SELECT u.updateTime FROM User u WHERE u.userId = :id")
+    Optional<Date> findUpdateTimeById(@Param("id") Long id);
+    
+    /**
+     * 按用户名或邮箱一次查询登录凭据（只查询校验需要的列）
+     */
+    @Query("SELECT new com.example.kidappapi.model.dto.UserCredential(u.userId, u.username, u.email, u.password) "
+            + "FROM User u WHERE u.username = :account OR u.email = :account")
+    List<UserCredential> findCredentialsByAccount(@Param("account") String account);
+    
+    /**
+     * 按ID查询数据库中当前的用户名和邮箱等凭据列
+     * 返回的不是托管实体，查询前也不刷新持久化上下文，得到的总是数据库里已保存的值
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT new com.example.kidappapi.model.dto.UserCredential(u.userId, u.username, u.email, u.password) "
+            + "FROM User u WHERE u.userId = :id")
+    Optional<UserCredential> findCredentialById(@Param("id") Long id);
+    
+    /**
+     * 按ID批量查询用户展示信息（只查询昵称和头像，没有昵称时取用户名）
+     */
+    @Query("SELECT new com.example.kidappapi.model.dto.UserSummary(u.userId, COALESCE(u.nickname, u.username), u.avatarUrl) "
+            + "FROM User u WHERE u.userId IN :ids")
+    List<UserSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 只更新用户密码（登录时旧密码重新哈希使用，避免加载并保存整个用户）
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.userId = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+    
+    /**
+     * 按ID顺序流式读取全部用户，必须在只读事务中使用并在使用后关闭
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动逐行读取结果集，不会一次加载到内存
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.userId")
+    Stream<User> streamAll();
+    
+    /**
+     * 流式读取全部用户的用户名、邮箱和昵称（预热唯一性检查的布隆过滤器），必须在只读事务中使用并在使用后关闭
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.username, u.email, u.nickname FROM User u")
+    Stream<Object[]> streamUniqueFields();
+    
+    /**
+     * 游标分页查找用户（按ID降序，不查询总数）
+     */
+    @Query("SELECT u FROM User u WHERE u.userId < :userId ORDER BY u.userId DESC")
+    List<User> findUsersBefore(@Param("userId") Long userId, Pageable pageable);
 } 
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.example.kidappapi.repository;
 
+import com.example.kidappapi.model.dto.VideoSummary;
 import com.example.kidappapi.model.entity.Video;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -15,42 +20,179 @@ import java.util.List;
 @Repository
 public interface VideoRepository extends JpaRepository<Video, Integer> {
     
+    /**
+     * 列表查询只选取VideoSummary需要的列，不加载TEXT类型的描述和播放地址
+     * （标题模糊搜索使用escape()转义%和_，与派生查询Containing的行为一致）
+     */
+    String SUMMARY_SELECT = "SELECT new com.example.kidappapi.model.dto.VideoSummary("
+            + "v.id, v.title, v.thumbnailUrl, v.duration, v.type, v.likesCount, v.commentsCount, v.createdAt) "
+            + "FROM Video v";
+    
     /**
      * 根据视频类型查找视频
      */
-    Page<Video> findByType(Video.VideoType type, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " WHERE v.type = ?1",
+            countQuery = "SELECT COUNT(v) FROM Video v WHERE v.type = ?1")
+    Page<VideoSummary> findByType(Video.VideoType type, Pageable pageable);
     
     /**
      * 根据标题模糊搜索视频
      */
-    Page<Video> findByTitleContaining(String title, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " WHERE v.title LIKE %?#{escape([0])}% ESCAPE ?#{escapeCharacter()}",
+            countQuery = "SELECT COUNT(v) FROM Video v WHERE v.title LIKE %?#{escape([0])}% ESCAPE ?#{escapeCharacter()}")
+    Page<VideoSummary> findByTitleContaining(String title, Pageable pageable);
     
     /**
      * 根据视频类型和标题模糊搜索视频
      */
-    Page<Video> findByTypeAndTitleContaining(Video.VideoType type, String title, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " WHERE v.type = ?1 AND v.title LIKE %?#{escape([1])}% ESCAPE ?#{escapeCharacter()}",
+            countQuery = "SELECT COUNT(v) FROM Video v "
+                    + "WHERE v.type = ?1 AND v.title LIKE %?#{escape([1])}% ESCAPE ?#{escapeCharacter()}")
+    Page<VideoSummary> findByTypeAndTitleContaining(Video.VideoType type, String title, Pageable pageable);
     
     /**
      * 查找热门视频（按点赞数排序）
      */
-    @Query("SELECT v FROM Video v ORDER BY v.likesCount DESC")
-    Page<Video> findHotVideos(Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " ORDER BY v.likesCount DESC",
+            countQuery = "SELECT COUNT(v) FROM Video v")
+    Page<VideoSummary> findHotVideos(Pageable pageable);
     
     /**
      * 查找最新视频（按创建时间排序）
      */
-    @Query("SELECT v FROM Video v ORDER BY v.createdAt DESC")
-    Page<Video> findLatestVideos(Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " ORDER BY v.createdAt DESC",
+            countQuery = "SELECT COUNT(v) FROM Video v")
+    Page<VideoSummary> findLatestVideos(Pageable pageable);
     
     /**
      * 根据视频类型查找热门视频
      */
-    @Query("SELECT v FROM Video v WHERE v.type = ?1 ORDER BY v.likesCount DESC")
-    Page<Video> findHotVideosByType(Video.VideoType type, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " WHERE v.type = ?1 ORDER BY v.likesCount DESC",
+            countQuery = "SELECT COUNT(v) FROM Video v WHERE v.type = ?1")
+    Page<VideoSummary> findHotVideosByType(Video.VideoType type, Pageable pageable);
     
     /**
      * 根据视频类型查找最新视频
      */
-    @Query("SELECT v FROM Video v WHERE v.type = ?1 ORDER BY v.createdAt DESC")
-    Page<Video> findLatestVideosByType(Video.VideoType type, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + " WHERE v.type = ?1 ORDER BY v.createdAt DESC",
+            countQuery = "SELECT COUNT(v) FROM Video v WHERE v.type = ?1")
+    Page<VideoSummary> findLatestVideosByType(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 根据视频类型统计视频数
+     */
+    long countByType(Video.VideoType type);
+    
+    /**
+     * 查找所有视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT)
+    Slice<VideoSummary> findAllVideoSlice(Pageable pageable);
+    
+    /**
+     * 根据视频类型查找视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = ?1")
+    Slice<VideoSummary> findSliceByType(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 根据标题模糊搜索视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.title LIKE %?#{escape([0])}% ESCAPE ?#{escapeCharacter()}")
+    Slice<VideoSummary> findSliceByTitleContaining(String title, Pageable pageable);
+    
+    /**
+     * 根据视频类型和标题模糊搜索视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = ?1 AND v.title LIKE %?#{escape([1])}% ESCAPE ?#{escapeCharacter()}")
+    Slice<VideoSummary> findSliceByTypeAndTitleContaining(Video.VideoType type, String title, Pageable pageable);
+    
+    /**
+     * 查找热门视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " ORDER BY v.likesCount DESC")
+    Slice<VideoSummary> findHotVideoSlice(Pageable pageable);
+    
+    /**
+     * 根据视频类型查找热门视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = ?1 ORDER BY v.likesCount DESC")
+    Slice<VideoSummary> findHotVideoSliceByType(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 查找最新视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " ORDER BY v.createdAt DESC")
+    Slice<VideoSummary> findLatestVideoSlice(Pageable pageable);
+    
+    /**
+     * 根据视频类型查找最新视频（Slice，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = ?1 ORDER BY v.createdAt DESC")
+    Slice<VideoSummary> findLatestVideoSliceByType(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 游标分页查找最新视频（按创建时间、ID降序，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id) "
+            + "ORDER BY v.createdAt DESC, v.id DESC")
+    List<VideoSummary> findLatestVideosBefore(@Param("createdAt") Date createdAt, @Param("id") Integer id,
+                                              Pageable pageable);
+    
+    /**
+     * 游标分页根据视频类型查找最新视频
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = :type "
+            + "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) "
+            + "ORDER BY v.createdAt DESC, v.id DESC")
+    List<VideoSummary> findLatestVideosByTypeBefore(@Param("type") Video.VideoType type,
+                                                    @Param("createdAt") Date createdAt,
+                                                    @Param("id") Integer id, Pageable pageable);
+    
+    /**
+     * 游标分页查找热门视频（按点赞数、ID降序，不查询总数）
+     */
+    @Query(SUMMARY_SELECT + " WHERE COALESCE(v.likesCount, 0) < :likesCount "
+            + "OR (COALESCE(v.likesCount, 0) = :likesCount AND v.id < :id) "
+            + "ORDER BY COALESCE(v.likesCount, 0) DESC, v.id DESC")
+    List<VideoSummary> findHotVideosBefore(@Param("likesCount") Integer likesCount, @Param("id") Integer id,
+                                           Pageable pageable);
+    
+    /**
+     * 游标分页根据视频类型查找热门视频
+     */
+    @Query(SUMMARY_SELECT + " WHERE v.type = :type "
+            + "AND (COALESCE(v.likesCount, 0) < :likesCount "
+            + "OR (COALESCE(v.likesCount, 0) = :likesCount AND v.id < :id)) "
+            + "ORDER BY COALESCE(v.likesCount, 0) DESC, v.id DESC")
+    List<VideoSummary> findHotVideosByTypeBefore(@Param("type") Video.VideoType type,
+                                                 @Param("likesCount") Integer likesCount,
+                                                 @Param("id") Integer id, Pageable pageable);
+    
+    /**
+     * 查询所有视频的ID、类型和点赞数（用于重建热门排行榜），每行为[id, type, likesCount]
+     */
+    @Query("SELECT v.id, v.type, v.likesCount FROM Video v")
+    List<Object[]> findAllLikesCounts();
+    
+    /**
+     * 查询所有视频的ID、类型、标题和点赞数（用于重建标题索引和联想前缀树），每行为[id, type, title, likesCount]
+     */
+    @Query("SELECT v.id, v.type, v.title, v.likesCount FROM Video v")
+    List<Object[]> findAllTitles();
+    
+    /**
+     * 原子地调整视频点赞数（delta可为负数，结果不小于0）
+     * 不清空持久化上下文，调用方需要自行移除已加载的该视频
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE vedios SET likes_count = GREATEST(COALESCE(likes_count, 0) + :delta, 0) WHERE id = :id", nativeQuery = true)
+    int addLikesCount(@Param("id") Integer id, @Param("delta") int delta);
+    
+    /**
+     * 原子地调整视频评论数（delta可为负数，结果不小于0）
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE vedios SET comments_count = GREATEST(COALESCE(comments_count, 0) + :delta, 0) WHERE id = :id", nativeQuery = true)
+    int addCommentsCount(@Param("id") Integer id, @Param("delta") int delta);
 } 
\ No newline at end of file
@@ -3,11 +3,14 @@ package com.example.kidappapi.repository;
 import com.example.kidappapi.model.entity.WatchHistory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,16 @@ public interface WatchHistoryRepository extends JpaRepository<WatchHistory, Inte
     // 分页查询用户观看历史
     Page<WatchHistory> findByUserId(Integer userId, Pageable pageable);
     
+    // 分页查询用户观看历史（Slice，不查询总数）
+    Slice<WatchHistory> findSliceByUserId(Integer userId, Pageable pageable);
+    
+    // 游标分页查询用户观看历史，按观看时间、ID降序，不查询总数
+    @Query("SELECT w FROM WatchHistory w WHERE w.userId = :userId "
+            + "AND (w.watchedAt < :watchedAt OR (w.watchedAt = :watchedAt AND w.id < :id)) "
+            + "ORDER BY w.watchedAt DESC, w.id DESC")
+    List<WatchHistory> findByUserIdBefore(@Param("userId") Integer userId, @Param("watchedAt") Date watchedAt,
+                                          @Param("id") Integer id, Pageable pageable);
+    
     // 根据用户ID和视频ID查询观看记录
     Optional<WatchHistory> findByUserIdAndVideoId(Integer userId, Integer videoId);
     
@@ -33,4 +46,8 @@ public interface WatchHistoryRepository extends JpaRepository<WatchHistory, Inte
     // 查询用户的所有不同视频数量
     @Query("SELECT COUNT(DISTINCT w.videoId) FROM WatchHistory w WHERE w.userId = :userId")
     long countDistinctVideosByUserId(@Param("userId") Integer userId);
+    
+    // 批量查询用户在给定视频上的观看进度，每行为[videoId, progress]
+    @Query("SELECT w.videoId, w.progress FROM WatchHistory w WHERE w.userId = :userId AND w.videoId IN :videoIds")
+    List<Object[]> findProgressByUserIdAndVideoIds(@Param("userId") Integer userId, @Param("videoIds") Collection<Integer> videoIds);
 } 
\ No newline at end of file
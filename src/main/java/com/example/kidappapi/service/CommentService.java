@@ -1,9 +1,11 @@
 package com.example.kidappapi.service;
 
 import com.example.kidappapi.model.dto.CommentDTO;
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,12 +18,21 @@ public interface CommentService {
     // 根据ID查找评论
     Optional<Comment> findCommentById(Integer id);
     
+    // 从主库查找评论，用于读取后修改再写回的场景
+    Optional<Comment> findCommentByIdOnPrimary(Integer id);
+    
     // 获取视频的所有评论（包含用户信息）
     List<CommentDTO> getVideoComments(Integer videoId);
     
     // 分页获取视频评论（包含用户信息）
     Page<CommentDTO> getVideoCommentsPaged(Integer videoId, Pageable pageable);
     
+    // 分页获取视频评论（包含用户信息，Slice，不查询总数）
+    Slice<CommentDTO> getVideoCommentsSlice(Integer videoId, Pageable pageable);
+    
+    // 游标分页获取视频评论（包含用户信息，不查询总数）
+    CursorSlice<CommentDTO> getVideoCommentsByCursor(Integer videoId, String cursor, int size);
+    
     // 删除评论
     void deleteComment(Integer id);
     
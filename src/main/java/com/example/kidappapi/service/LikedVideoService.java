@@ -3,6 +3,10 @@ package com.example.kidappapi.service;
 import com.example.kidappapi.model.entity.LikedVideo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Set;
 
 public interface LikedVideoService {
     // 用户点赞视频
@@ -14,6 +18,12 @@ public interface LikedVideoService {
     // 检查用户是否已点赞视频
     boolean hasUserLikedVideo(Integer userId, Integer videoId);
     
+    // 批量检查用户是否已点赞视频，返回已点赞的视频ID
+    Set<Integer> getLikedVideoIds(Integer userId, Collection<Integer> videoIds);
+    
     // 获取用户点赞的所有视频
     Page<LikedVideo> getUserLikedVideos(Integer userId, Pageable pageable);
+    
+    // 获取用户点赞的视频（Slice，不查询总数）
+    Slice<LikedVideo> getUserLikedVideosSlice(Integer userId, Pageable pageable);
 } 
\ No newline at end of file
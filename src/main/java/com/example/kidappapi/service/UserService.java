@@ -1,9 +1,14 @@
 package com.example.kidappapi.service;
 
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.UserSummary;
 import com.example.kidappapi.model.entity.User;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 用户服务接口
@@ -28,6 +33,21 @@ public interface UserService {
      */
     Optional<User> findUserById(Long id);
     
+    /**
+     * 从主库查找用户，用于读取后修改再写回的场景（不经过从库，读到的一定是最新提交的数据）
+     */
+    Optional<User> findUserByIdOnPrimary(Long id);
+    
+    /**
+     * 查询用户的更新时间，用户不存在或没有更新时间时返回空
+     */
+    Optional<Date> findUserUpdateTime(Long id);
+    
+    /**
+     * 批量获取用户展示信息（昵称、头像，优先读缓存），不存在的用户不出现在结果中
+     */
+    Map<Long, UserSummary> findUserSummaries(Collection<Long> ids);
+    
     /**
      * 根据用户名查找用户
      */
@@ -44,9 +64,14 @@ public interface UserService {
     Optional<User> findUserByEmail(String email);
     
     /**
-     * 查找所有用户
+     * 流式遍历所有用户（按ID升序），逐条交给consumer处理，内存占用与用户总数无关
+     */
+    void streamAllUsers(Consumer<User> consumer);
+    
+    /**
+     * 游标分页查找用户（按ID降序，不查询总数）
      */
-    List<User> findAllUsers();
+    CursorSlice<User> findUsersByCursor(String cursor, int size);
     
     /**
      * 更新用户信息
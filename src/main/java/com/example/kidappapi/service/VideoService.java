@@ -1,9 +1,15 @@
 package com.example.kidappapi.service;
 
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.VideoSuggestion;
+import com.example.kidappapi.model.dto.VideoSummary;
 import com.example.kidappapi.model.entity.Video;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,44 +28,89 @@ public interface VideoService {
     Optional<Video> findVideoById(Integer id);
     
     /**
-     * 查找所有视频
+     * 根据ID批量查找视频（一次IN查询），不存在的ID会被忽略
      */
-    Page<Video> findAllVideos(Pageable pageable);
+    List<Video> findVideosByIds(Collection<Integer> ids);
+    
+    /**
+     * 查找所有视频（列表项不含描述和播放地址，下同）
+     */
+    Page<VideoSummary> findAllVideos(Pageable pageable);
     
     /**
      * 根据类型查找视频
      */
-    Page<Video> findVideosByType(Video.VideoType type, Pageable pageable);
+    Page<VideoSummary> findVideosByType(Video.VideoType type, Pageable pageable);
     
     /**
      * 根据标题搜索视频
      */
-    Page<Video> searchVideosByTitle(String title, Pageable pageable);
+    Page<VideoSummary> searchVideosByTitle(String title, Pageable pageable);
     
     /**
      * 根据类型和标题搜索视频
      */
-    Page<Video> searchVideosByTypeAndTitle(Video.VideoType type, String title, Pageable pageable);
+    Page<VideoSummary> searchVideosByTypeAndTitle(Video.VideoType type, String title, Pageable pageable);
+    
+    /**
+     * 根据标题前缀联想视频，按点赞数降序
+     */
+    List<VideoSuggestion> suggestVideoTitles(String prefix, int limit);
     
     /**
      * 查找热门视频
      */
-    Page<Video> findHotVideos(Pageable pageable);
+    Page<VideoSummary> findHotVideos(Pageable pageable);
     
     /**
      * 查找最新视频
      */
-    Page<Video> findLatestVideos(Pageable pageable);
+    Page<VideoSummary> findLatestVideos(Pageable pageable);
     
     /**
      * 根据类型查找热门视频
      */
-    Page<Video> findHotVideosByType(Video.VideoType type, Pageable pageable);
+    Page<VideoSummary> findHotVideosByType(Video.VideoType type, Pageable pageable);
     
     /**
      * 根据类型查找最新视频
      */
-    Page<Video> findLatestVideosByType(Video.VideoType type, Pageable pageable);
+    Page<VideoSummary> findLatestVideosByType(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 查找所有视频（Slice，不查询总数）
+     */
+    Slice<VideoSummary> findAllVideosSlice(Pageable pageable);
+    
+    /**
+     * 根据类型查找视频（Slice，不查询总数）
+     */
+    Slice<VideoSummary> findVideosByTypeSlice(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 根据标题搜索视频（Slice，不查询总数），type为null时搜索所有类型
+     */
+    Slice<VideoSummary> searchVideosByTitleSlice(Video.VideoType type, String title, Pageable pageable);
+    
+    /**
+     * 查找热门视频（Slice，不查询总数），type为null时查询所有类型
+     */
+    Slice<VideoSummary> findHotVideosSlice(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 查找最新视频（Slice，不查询总数），type为null时查询所有类型
+     */
+    Slice<VideoSummary> findLatestVideosSlice(Video.VideoType type, Pageable pageable);
+    
+    /**
+     * 游标分页查找最新视频（不查询总数），type为null时查询所有类型
+     */
+    CursorSlice<VideoSummary> findLatestVideosByCursor(Video.VideoType type, String cursor, int size);
+    
+    /**
+     * 游标分页查找热门视频（不查询总数），type为null时查询所有类型
+     */
+    CursorSlice<VideoSummary> findHotVideosByCursor(Video.VideoType type, String cursor, int size);
     
     /**
      * 更新视频信息
@@ -1,16 +1,20 @@
 package com.example.kidappapi.service;
 
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.dto.WatchHistoryDTO;
 import com.example.kidappapi.model.entity.WatchHistory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface WatchHistoryService {
     
-    // 保存或更新观看历史
+    // 保存或更新观看历史，返回记录ID和本次写入的进度、观看时间
     WatchHistory saveWatchHistory(WatchHistory watchHistory);
     
     // 根据ID查找观看历史
@@ -22,6 +26,12 @@ public interface WatchHistoryService {
     // 分页获取用户观看历史（包含视频信息）
     Page<WatchHistoryDTO> getUserWatchHistoryPaged(Integer userId, Pageable pageable);
     
+    // 分页获取用户观看历史（包含视频信息，Slice，不查询总数）
+    Slice<WatchHistoryDTO> getUserWatchHistorySlice(Integer userId, Pageable pageable);
+    
+    // 游标分页获取用户观看历史（包含视频信息，不查询总数）
+    CursorSlice<WatchHistoryDTO> getUserWatchHistoryByCursor(Integer userId, String cursor, int size);
+    
     // 获取用户的最近观看历史
     List<WatchHistoryDTO> getUserRecentWatchHistory(Integer userId);
     
@@ -31,7 +41,10 @@ public interface WatchHistoryService {
     // 获取用户观看视频的进度
     Integer getUserVideoProgress(Integer userId, Integer videoId);
     
-    // 更新用户观看视频的进度
+    // 批量获取用户观看视频的进度，返回视频ID到进度的映射，未观看过的视频不包含在内
+    Map<Integer, Integer> getUserVideosProgress(Integer userId, Collection<Integer> videoIds);
+    
+    // 更新用户观看视频的进度，返回记录ID和本次写入的进度、观看时间；启用进度写合并时异步写入，此时ID为null
     WatchHistory updateWatchProgress(Integer userId, Integer videoId, Integer progress);
     
     // 删除观看历史
@@ -1,39 +1,52 @@
 package com.example.kidappapi.service.impl;
 
+import com.example.kidappapi.cache.CountCache;
 import com.example.kidappapi.model.dto.CommentDTO;
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.UserSummary;
 import com.example.kidappapi.model.entity.Comment;
-import com.example.kidappapi.model.entity.User;
 import com.example.kidappapi.repository.CommentRepository;
-import com.example.kidappapi.repository.UserRepository;
 import com.example.kidappapi.service.CommentService;
+import com.example.kidappapi.service.UserService;
 import com.example.kidappapi.service.VideoService;
+import com.example.kidappapi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
+    private static final String COMMENT_COUNT_KEY_PREFIX = "comment:video:";
+
     private final CommentRepository commentRepository;
-    private final UserRepository userRepository;
+    private final UserService userService;
     private final VideoService videoService;
+    private final CountCache countCache;
 
     @Autowired
     public CommentServiceImpl(
             CommentRepository commentRepository,
-            UserRepository userRepository,
-            VideoService videoService) {
+            UserService userService,
+            VideoService videoService,
+            CountCache countCache) {
         this.commentRepository = commentRepository;
-        this.userRepository = userRepository;
+        this.userService = userService;
         this.videoService = videoService;
+        this.countCache = countCache;
     }
 
     @Override
@@ -44,37 +57,69 @@ public class CommentServiceImpl implements CommentService {
         
         // 增加视频评论数
         videoService.incrementCommentsCount(comment.getVideoId());
+        countCache.evict(COMMENT_COUNT_KEY_PREFIX + comment.getVideoId());
         
         return savedComment;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Comment> findCommentById(Integer id) {
         return commentRepository.findById(id);
     }
 
     @Override
+    @Transactional
+    public Optional<Comment> findCommentByIdOnPrimary(Integer id) {
+        return commentRepository.findById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<CommentDTO> getVideoComments(Integer videoId) {
         // 获取视频的所有评论
         List<Comment> comments = commentRepository.findByVideoIdOrderByCreatedAtDesc(videoId);
         
         // 将评论转换为带有用户信息的DTO
-        return comments.stream()
-                .map(this::convertToCommentDTO)
-                .collect(Collectors.toList());
+        return convertToCommentDTOs(comments);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<CommentDTO> getVideoCommentsPaged(Integer videoId, Pageable pageable) {
-        // 分页获取视频评论
-        Page<Comment> commentPage = commentRepository.findByVideoId(videoId, pageable);
+        // 分页获取视频评论，总数使用缓存的近似值，避免每页都执行COUNT
+        Slice<Comment> commentSlice = commentRepository.findSliceByVideoId(videoId, pageable);
+        long total = countCache.get(COMMENT_COUNT_KEY_PREFIX + videoId,
+                () -> commentRepository.countByVideoId(videoId));
         
         // 将评论转换为带有用户信息的DTO
-        List<CommentDTO> commentDTOs = commentPage.getContent().stream()
-                .map(this::convertToCommentDTO)
-                .collect(Collectors.toList());
+        List<CommentDTO> commentDTOs = convertToCommentDTOs(commentSlice.getContent());
+        
+        return new PageImpl<>(commentDTOs, pageable, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CommentDTO> getVideoCommentsSlice(Integer videoId, Pageable pageable) {
+        Slice<Comment> commentSlice = commentRepository.findSliceByVideoId(videoId, pageable);
+        
+        // 将评论转换为带有用户信息的DTO
+        List<CommentDTO> commentDTOs = convertToCommentDTOs(commentSlice.getContent());
         
-        return new PageImpl<>(commentDTOs, pageable, commentPage.getTotalElements());
+        return new SliceImpl<>(commentDTOs, pageable, commentSlice.hasNext());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<CommentDTO> getVideoCommentsByCursor(Integer videoId, String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<Comment> comments = commentRepository.findByVideoIdBefore(
+                videoId, pageCursor.getDateValue(), pageCursor.getId(), PageRequest.of(0, size + 1));
+        CursorSlice<Comment> slice = CursorSlice.of(comments, size,
+                comment -> PageCursor.encode(comment.getCreatedAt(), comment.getId()));
+        
+        // 将评论转换为带有用户信息的DTO
+        return new CursorSlice<>(convertToCommentDTOs(slice.getContent()), slice.isHasNext(), slice.getNextCursor());
     }
 
     @Override
@@ -90,6 +135,7 @@ public class CommentServiceImpl implements CommentService {
             
             // 减少视频评论数
             videoService.decrementCommentsCount(comment.getVideoId());
+            countCache.evict(COMMENT_COUNT_KEY_PREFIX + comment.getVideoId());
         }
     }
 
@@ -99,30 +145,47 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Comment> getUserComments(Integer userId) {
         return commentRepository.findByUserId(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long getVideoCommentCount(Integer videoId) {
         return commentRepository.countByVideoId(videoId);
     }
     
+    // 批量将Comment转换为CommentDTO，本页涉及的用户展示信息优先从缓存获取，未命中的一次查询取回
+    private List<CommentDTO> convertToCommentDTOs(List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 收集去重后的用户ID
+        Set<Long> userIds = comments.stream()
+                .map(comment -> Long.valueOf(comment.getUserId()))
+                .collect(Collectors.toSet());
+
+        // 只取昵称和头像，不加载完整用户
+        Map<Long, UserSummary> userMap = userService.findUserSummaries(userIds);
+
+        return comments.stream()
+                .map(comment -> convertToCommentDTO(comment, userMap.get(Long.valueOf(comment.getUserId()))))
+                .collect(Collectors.toList());
+    }
+
     // 将Comment转换为CommentDTO，包含用户信息
-    private CommentDTO convertToCommentDTO(Comment comment) {
-        // 获取用户信息
-        Optional<User> userOptional = userRepository.findById(Long.valueOf(comment.getUserId()));
-        
+    private CommentDTO convertToCommentDTO(Comment comment, UserSummary user) {
         String nickname = "未知用户";
         String avatarUrl = "";
         
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            nickname = user.getNickname() != null ? user.getNickname() : user.getUsername();
+        if (user != null) {
+            nickname = user.getNickname();
             avatarUrl = user.getAvatarUrl();
         }
         
         // 创建并返回DTO
         return new CommentDTO(comment, nickname, avatarUrl);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.kidappapi.service.impl;
 
+import com.example.kidappapi.component.LikedVideoRedisStore;
 import com.example.kidappapi.model.entity.LikedVideo;
 import com.example.kidappapi.repository.LikedVideoRepository;
 import com.example.kidappapi.service.LikedVideoService;
@@ -7,19 +8,30 @@ import com.example.kidappapi.service.VideoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 @Service
 public class LikedVideoServiceImpl implements LikedVideoService {
 
     private final LikedVideoRepository likedVideoRepository;
     private final VideoService videoService;
+    private final LikedVideoRedisStore likedVideoRedisStore;
 
     @Autowired
-    public LikedVideoServiceImpl(LikedVideoRepository likedVideoRepository, VideoService videoService) {
+    public LikedVideoServiceImpl(
+            LikedVideoRepository likedVideoRepository,
+            VideoService videoService,
+            LikedVideoRedisStore likedVideoRedisStore) {
         this.likedVideoRepository = likedVideoRepository;
         this.videoService = videoService;
+        this.likedVideoRedisStore = likedVideoRedisStore;
     }
 
     @Override
@@ -30,6 +42,20 @@ public class LikedVideoServiceImpl implements LikedVideoService {
             throw new RuntimeException("视频不存在");
         }
 
+        // 启用Redis时点赞状态写入Redis，点赞记录异步写回数据库，写回最终失败时回退点赞数
+        if (likedVideoRedisStore.isEnabled()) {
+            if (!likedVideoRedisStore.like(userId, videoId, () -> videoService.decrementLikesCount(videoId))) {
+                throw new RuntimeException("已经点赞过该视频");
+            }
+            videoService.incrementLikesCount(videoId);
+
+            LikedVideo likedVideo = new LikedVideo();
+            likedVideo.setUserId(userId);
+            likedVideo.setVideoId(videoId);
+            likedVideo.setLikedAt(LocalDateTime.now());
+            return likedVideo;
+        }
+
         // 检查是否已经点赞
         if (hasUserLikedVideo(userId, videoId)) {
             throw new RuntimeException("已经点赞过该视频");
@@ -52,6 +78,15 @@ public class LikedVideoServiceImpl implements LikedVideoService {
     @Override
     @Transactional
     public void unlikeVideo(Integer userId, Integer videoId) {
+        // 启用Redis时从Redis移除点赞状态，删除操作异步写回数据库
+        if (likedVideoRedisStore.isEnabled()) {
+            if (!likedVideoRedisStore.unlike(userId, videoId, () -> videoService.incrementLikesCount(videoId))) {
+                throw new RuntimeException("未点赞该视频");
+            }
+            videoService.decrementLikesCount(videoId);
+            return;
+        }
+
         // 检查是否已经点赞
         if (!hasUserLikedVideo(userId, videoId)) {
             throw new RuntimeException("未点赞该视频");
@@ -65,12 +100,35 @@ public class LikedVideoServiceImpl implements LikedVideoService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean hasUserLikedVideo(Integer userId, Integer videoId) {
+        if (likedVideoRedisStore.isEnabled()) {
+            return likedVideoRedisStore.hasLiked(userId, videoId);
+        }
         return likedVideoRepository.existsByUserIdAndVideoId(userId, videoId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Set<Integer> getLikedVideoIds(Integer userId, Collection<Integer> videoIds) {
+        if (videoIds == null || videoIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (likedVideoRedisStore.isEnabled()) {
+            return likedVideoRedisStore.getLikedVideoIds(userId, videoIds);
+        }
+        return new HashSet<>(likedVideoRepository.findLikedVideoIds(userId, videoIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<LikedVideo> getUserLikedVideos(Integer userId, Pageable pageable) {
         return likedVideoRepository.findByUserId(userId, pageable);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LikedVideo> getUserLikedVideosSlice(Integer userId, Pageable pageable) {
+        return likedVideoRepository.findSliceByUserId(userId, pageable);
+    }
 } 
\ No newline at end of file
@@ -1,113 +1,245 @@
 package com.example.kidappapi.service.impl;
 
+import com.example.kidappapi.cache.BatchLoader;
+import com.example.kidappapi.cache.UserCredentialCache;
+import com.example.kidappapi.cache.UserSummaryCache;
+import com.example.kidappapi.component.PasswordHasher;
+import com.example.kidappapi.component.UserUniquenessFilter;
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.UserCredential;
+import com.example.kidappapi.model.dto.UserSummary;
 import com.example.kidappapi.model.entity.User;
 import com.example.kidappapi.repository.UserRepository;
 import com.example.kidappapi.service.UserService;
 import com.example.kidappapi.service.VerificationCodeService;
+import com.example.kidappapi.util.PageCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 用户服务实现类
+ * 密码哈希耗时较长，一律在事务开启前计算，避免哈希期间占用数据库连接；
+ * 涉及哈希的方法不加@Transactional，只把写库部分放进transactionTemplate
  */
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepository userRepository;
     private final VerificationCodeService verificationCodeService;
+    private final BatchLoader<Long, User> userBatchLoader;
+    private final UserCredentialCache userCredentialCache;
+    private final PasswordHasher passwordHasher;
+    private final EntityManager entityManager;
+    private final UserUniquenessFilter userUniquenessFilter;
+    private final UserSummaryCache userSummaryCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, VerificationCodeService verificationCodeService) {
+    public UserServiceImpl(
+            UserRepository userRepository,
+            VerificationCodeService verificationCodeService,
+            BatchLoader<Long, User> userBatchLoader,
+            UserCredentialCache userCredentialCache,
+            PasswordHasher passwordHasher,
+            EntityManager entityManager,
+            UserUniquenessFilter userUniquenessFilter,
+            UserSummaryCache userSummaryCache,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.verificationCodeService = verificationCodeService;
+        this.userBatchLoader = userBatchLoader;
+        this.userCredentialCache = userCredentialCache;
+        this.passwordHasher = passwordHasher;
+        this.entityManager = entityManager;
+        this.userUniquenessFilter = userUniquenessFilter;
+        this.userSummaryCache = userSummaryCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
-    @Transactional
     public User saveUser(User user) {
-        return userRepository.save(user);
+        hashPasswordIfNeeded(user);
+        return transactionTemplate.execute(status -> {
+            User savedUser = userRepository.save(user);
+            userUniquenessFilter.add(savedUser);
+            // 注册前可能缓存过该账号不存在的结果
+            userCredentialCache.evict(savedUser.getUsername(), savedUser.getEmail());
+            return savedUser;
+        });
     }
 
     @Override
     public Optional<User> login(String account, String password) {
-        // 首先尝试用账号作为用户名登录
-        Optional<User> userByUsername = userRepository.findByUsername(account);
-        if (userByUsername.isPresent() && userByUsername.get().getPassword().equals(password)) {
-            return userByUsername;
-        }
+        // 一次查询取出用户名或邮箱匹配的凭据（短期缓存，不存在的账号同样缓存）
+        List<UserCredential> credentials = userCredentialCache.get(account, userRepository::findCredentialsByAccount);
         
-        // 如果用户名登录失败，尝试用账号作为邮箱登录
-        Optional<User> userByEmail = userRepository.findByEmail(account);
-        if (userByEmail.isPresent() && userByEmail.get().getPassword().equals(password)) {
-            return userByEmail;
+        // 用户名匹配优先，其次是邮箱匹配
+        UserCredential matched = null;
+        for (UserCredential credential : credentials) {
+            if (!passwordHasher.matches(password, credential.getPassword())) {
+                continue;
+            }
+            // 与数据库忽略大小写的账号匹配保持一致
+            if (account.equalsIgnoreCase(credential.getUsername())) {
+                matched = credential;
+                break;
+            }
+            if (matched == null) {
+                matched = credential;
+            }
         }
         
-        // 如果都登录失败，返回空
-        return Optional.empty();
+        // 如果都登录失败，返回空；成功时按ID加载完整用户
+        if (matched == null) {
+            return Optional.empty();
+        }
+        rehashIfNeeded(matched, password);
+        return findUserById(matched.getUserId());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findUserById(Long id) {
+        // 并发的相同/不同ID合并为一次IN查询
+        return userBatchLoader.load(id);
+    }
+
+    @Override
+    @Transactional
+    public Optional<User> findUserByIdOnPrimary(Long id) {
         return userRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<Date> findUserUpdateTime(Long id) {
+        return userRepository.findUpdateTimeById(id);
+    }
+
+    @Override
+    public Map<Long, UserSummary> findUserSummaries(Collection<Long> ids) {
+        // 全部命中缓存时不开启事务、不访问数据库
+        return userSummaryCache.getAll(ids, userRepository::findSummariesByIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<User> findUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findUserByNickname(String nickname) {
         return userRepository.findByNickname(nickname);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     @Override
-    public List<User> findAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<User> consumer) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                // 处理完立即从持久化上下文移除，避免一级缓存随遍历增长
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<User> findUsersByCursor(String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // 多查询一条判断是否还有下一页；用户ID唯一，游标只使用排序值
+        List<User> users = userRepository.findUsersBefore(pageCursor.getLongValue(), PageRequest.of(0, size + 1));
+        return CursorSlice.of(users, size, user -> PageCursor.encode(user.getUserId(), 0));
     }
 
     @Override
-    @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        hashPasswordIfNeeded(user);
+        return transactionTemplate.execute(status -> {
+            // 保存前从数据库取出原用户名和邮箱，修改账号时旧账号的缓存同样要移除；
+            // 传入的user可能已被修改（甚至是同一个托管实体），不能用findById读取旧值
+            Optional<UserCredential> previous = userRepository.findCredentialById(user.getUserId());
+            String previousUsername = previous.map(UserCredential::getUsername).orElse(null);
+            String previousEmail = previous.map(UserCredential::getEmail).orElse(null);
+            User updatedUser = userRepository.save(user);
+            userUniquenessFilter.add(updatedUser);
+            userSummaryCache.evict(updatedUser.getUserId());
+            userCredentialCache.evict(previousUsername, previousEmail,
+                    updatedUser.getUsername(), updatedUser.getEmail());
+            return updatedUser;
+        });
     }
 
     @Override
     @Transactional
     public void deleteUser(Long id) {
+        // 布隆过滤器不支持删除，旧值只会造成误判（再查询数据库），由定期重建清除
+        Optional<User> deleted = userRepository.findById(id);
         userRepository.deleteById(id);
+        userSummaryCache.evict(id);
+        deleted.ifPresent(user -> userCredentialCache.evict(user.getUsername(), user.getEmail()));
     }
 
+    // 唯一性检查决定是否写入，必须读主库（只读事务会路由到有复制延迟的从库）
     @Override
+    @Transactional
     public boolean isUsernameExists(String username) {
+        // 布隆过滤器判定不存在时无需查询数据库
+        if (!userUniquenessFilter.mightExist(UserUniquenessFilter.Field.USERNAME, username)) {
+            return false;
+        }
         return userRepository.existsByUsername(username);
     }
 
     @Override
+    @Transactional
     public boolean isNicknameExists(String nickname) {
+        if (!userUniquenessFilter.mightExist(UserUniquenessFilter.Field.NICKNAME, nickname)) {
+            return false;
+        }
         return userRepository.existsByNickname(nickname);
     }
 
     @Override
+    @Transactional
     public boolean isEmailExists(String email) {
+        if (!userUniquenessFilter.mightExist(UserUniquenessFilter.Field.EMAIL, email)) {
+            return false;
+        }
         return userRepository.existsByEmail(email);
     }
 
     @Override
-    @Transactional
     public boolean changePassword(String email, String verificationCode, String newPassword) {
-        // 1. 验证邮箱是否存在
-        Optional<User> userOptional = userRepository.findByEmail(email);
-        if (!userOptional.isPresent()) {
+        // 1. 验证邮箱是否存在（不在事务中，查询主库）
+        if (!userRepository.findByEmail(email).isPresent()) {
             return false;
         }
         
@@ -116,14 +248,54 @@ public class UserServiceImpl implements UserService {
             return false;
         }
         
-        // 3. 更新密码
-        User user = userOptional.get();
-        user.setPassword(newPassword);
-        userRepository.save(user);
+        // 3. 事务外计算哈希，事务内重新读取用户并更新密码
+        String hashedPassword = passwordHasher.hash(newPassword);
+        Boolean updated = transactionTemplate.execute(status -> {
+            Optional<User> userOptional = userRepository.findByEmail(email);
+            userOptional.ifPresent(user -> {
+                user.setPassword(hashedPassword);
+                userCredentialCache.evict(user.getUsername(), user.getEmail());
+            });
+            return userOptional.isPresent();
+        });
+        if (!Boolean.TRUE.equals(updated)) {
+            return false;
+        }
         
         // 4. 验证成功后，使验证码失效
         verificationCodeService.invalidateCode(email);
         
         return true;
     }
+
+    /**
+     * 保存前哈希明文密码，已经是哈希格式的密码（未修改密码的更新）保持不变
+     */
+    private void hashPasswordIfNeeded(User user) {
+        String password = user.getPassword();
+        if (password != null && !passwordHasher.isHashed(password)) {
+            user.setPassword(passwordHasher.hash(password));
+        }
+    }
+
+    /**
+     * 登录成功后将旧的明文密码或旧参数的哈希重新哈希，哈希线程池繁忙时跳过，下次登录再处理
+     * 哈希在事务外计算，事务只包含密码更新
+     */
+    private void rehashIfNeeded(UserCredential credential, String password) {
+        if (!passwordHasher.needsRehash(credential.getPassword())) {
+            return;
+        }
+        String hashedPassword;
+        try {
+            hashedPassword = passwordHasher.hash(password);
+        } catch (RejectedExecutionException e) {
+            logger.warn("密码哈希繁忙，跳过用户{}的密码重新哈希", credential.getUserId());
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.updatePassword(credential.getUserId(), hashedPassword);
+            userCredentialCache.evict(credential.getUsername(), credential.getEmail());
+        });
+    }
 } 
\ No newline at end of file
@@ -1,15 +1,37 @@
 package com.example.kidappapi.service.impl;
 
+import com.example.kidappapi.cache.BatchLoader;
+import com.example.kidappapi.cache.CountCache;
+import com.example.kidappapi.cache.ResponseBodyCache;
+import com.example.kidappapi.cache.VideoCache;
+import com.example.kidappapi.component.VideoCounterBuffer;
+import com.example.kidappapi.component.VideoLeaderboard;
+import com.example.kidappapi.component.VideoSearchIndex;
+import com.example.kidappapi.component.VideoTitleSuggester;
+import com.example.kidappapi.model.dto.CursorSlice;
+import com.example.kidappapi.model.dto.VideoSuggestion;
+import com.example.kidappapi.model.dto.VideoSummary;
 import com.example.kidappapi.model.entity.Video;
 import com.example.kidappapi.repository.VideoRepository;
 import com.example.kidappapi.service.VideoService;
+import com.example.kidappapi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * 视频服务实现类
@@ -17,121 +39,339 @@ import java.util.Optional;
 @Service
 public class VideoServiceImpl implements VideoService {
 
+    private static final String VIDEO_COUNT_KEY_PREFIX = "video:";
+    private static final String ALL_VIDEOS_COUNT_KEY = VIDEO_COUNT_KEY_PREFIX + "all";
+    private static final String TYPE_VIDEOS_COUNT_KEY_PREFIX = VIDEO_COUNT_KEY_PREFIX + "type:";
+
     private final VideoRepository videoRepository;
+    private final VideoCounterBuffer videoCounterBuffer;
+    private final VideoCache videoCache;
+    private final BatchLoader<Integer, Video> videoBatchLoader;
+    private final VideoLeaderboard videoLeaderboard;
+    private final VideoSearchIndex videoSearchIndex;
+    private final VideoTitleSuggester videoTitleSuggester;
+    private final CountCache countCache;
+    private final ResponseBodyCache responseBodyCache;
 
     @Autowired
-    public VideoServiceImpl(VideoRepository videoRepository) {
+    public VideoServiceImpl(
+            VideoRepository videoRepository,
+            VideoCounterBuffer videoCounterBuffer,
+            VideoCache videoCache,
+            BatchLoader<Integer, Video> videoBatchLoader,
+            VideoLeaderboard videoLeaderboard,
+            VideoSearchIndex videoSearchIndex,
+            VideoTitleSuggester videoTitleSuggester,
+            CountCache countCache,
+            ResponseBodyCache responseBodyCache) {
         this.videoRepository = videoRepository;
+        this.videoCounterBuffer = videoCounterBuffer;
+        this.videoCache = videoCache;
+        this.videoBatchLoader = videoBatchLoader;
+        this.videoLeaderboard = videoLeaderboard;
+        this.videoSearchIndex = videoSearchIndex;
+        this.videoTitleSuggester = videoTitleSuggester;
+        this.countCache = countCache;
+        this.responseBodyCache = responseBodyCache;
     }
 
     @Override
     @Transactional
     public Video saveVideo(Video video) {
-        return videoRepository.save(video);
+        Video savedVideo = videoRepository.save(video);
+        videoCache.evict(savedVideo.getId());
+        videoLeaderboard.put(savedVideo);
+        videoSearchIndex.put(savedVideo);
+        videoTitleSuggester.put(savedVideo);
+        countCache.evictByPrefix(VIDEO_COUNT_KEY_PREFIX);
+        responseBodyCache.evictByPrefix(ResponseBodyCache.VIDEO_CATALOG_PREFIX);
+        return savedVideo;
     }
 
     @Override
     public Optional<Video> findVideoById(Integer id) {
-        return videoRepository.findById(id);
+        // 缓存未命中时经由批量加载器查询，并发的相同/不同ID合并为一次IN查询
+        return videoCache.get(id, videoBatchLoader::load).map(this::mergePendingCounts);
+    }
+
+    @Override
+    public List<Video> findVideosByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Video> videos = videoCache.getAll(ids, videoRepository::findAllById);
+        videos.forEach(this::mergePendingCounts);
+        return videos;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findAllVideos(Pageable pageable) {
+        // 总数使用缓存的近似值，避免每页都执行COUNT
+        Slice<VideoSummary> videos = videoRepository.findAllVideoSlice(pageable);
+        return mergePendingCounts(withCachedTotal(videos, pageable, ALL_VIDEOS_COUNT_KEY, videoRepository::count));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findVideosByType(Video.VideoType type, Pageable pageable) {
+        Slice<VideoSummary> videos = videoRepository.findSliceByType(type, pageable);
+        return mergePendingCounts(withCachedTotal(videos, pageable, TYPE_VIDEOS_COUNT_KEY_PREFIX + type,
+                () -> videoRepository.countByType(type)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> searchVideosByTitle(String title, Pageable pageable) {
+        if (videoSearchIndex.isReady() && !title.isEmpty()) {
+            return searchVideosFromIndex(null, title, pageable);
+        }
+        return mergePendingCounts(videoRepository.findByTitleContaining(title, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> searchVideosByTypeAndTitle(Video.VideoType type, String title, Pageable pageable) {
+        if (videoSearchIndex.isReady() && !title.isEmpty()) {
+            return searchVideosFromIndex(type, title, pageable);
+        }
+        return mergePendingCounts(videoRepository.findByTypeAndTitleContaining(type, title, pageable));
+    }
+
+    @Override
+    public List<VideoSuggestion> suggestVideoTitles(String prefix, int limit) {
+        return videoTitleSuggester.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findHotVideos(Pageable pageable) {
+        if (videoLeaderboard.canServe(pageable.getOffset())) {
+            return findHotVideosFromLeaderboard(null, pageable);
+        }
+        return mergePendingCounts(videoRepository.findHotVideos(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findLatestVideos(Pageable pageable) {
+        Slice<VideoSummary> videos = videoRepository.findLatestVideoSlice(pageable);
+        return mergePendingCounts(withCachedTotal(videos, pageable, ALL_VIDEOS_COUNT_KEY, videoRepository::count));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findHotVideosByType(Video.VideoType type, Pageable pageable) {
+        if (videoLeaderboard.canServe(pageable.getOffset())) {
+            return findHotVideosFromLeaderboard(type, pageable);
+        }
+        return mergePendingCounts(videoRepository.findHotVideosByType(type, pageable));
     }
 
     @Override
-    public Page<Video> findAllVideos(Pageable pageable) {
-        return videoRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Page<VideoSummary> findLatestVideosByType(Video.VideoType type, Pageable pageable) {
+        Slice<VideoSummary> videos = videoRepository.findLatestVideoSliceByType(type, pageable);
+        return mergePendingCounts(withCachedTotal(videos, pageable, TYPE_VIDEOS_COUNT_KEY_PREFIX + type,
+                () -> videoRepository.countByType(type)));
     }
 
     @Override
-    public Page<Video> findVideosByType(Video.VideoType type, Pageable pageable) {
-        return videoRepository.findByType(type, pageable);
+    @Transactional(readOnly = true)
+    public Slice<VideoSummary> findAllVideosSlice(Pageable pageable) {
+        return mergePendingCounts(videoRepository.findAllVideoSlice(pageable));
     }
 
     @Override
-    public Page<Video> searchVideosByTitle(String title, Pageable pageable) {
-        return videoRepository.findByTitleContaining(title, pageable);
+    @Transactional(readOnly = true)
+    public Slice<VideoSummary> findVideosByTypeSlice(Video.VideoType type, Pageable pageable) {
+        return mergePendingCounts(videoRepository.findSliceByType(type, pageable));
     }
 
     @Override
-    public Page<Video> searchVideosByTypeAndTitle(Video.VideoType type, String title, Pageable pageable) {
-        return videoRepository.findByTypeAndTitleContaining(type, title, pageable);
+    @Transactional(readOnly = true)
+    public Slice<VideoSummary> searchVideosByTitleSlice(Video.VideoType type, String title, Pageable pageable) {
+        if (videoSearchIndex.isReady() && !title.isEmpty()) {
+            Page<VideoSummary> videos = searchVideosFromIndex(type, title, pageable);
+            return new SliceImpl<>(videos.getContent(), pageable, videos.hasNext());
+        }
+        if (type != null) {
+            return mergePendingCounts(videoRepository.findSliceByTypeAndTitleContaining(type, title, pageable));
+        }
+        return mergePendingCounts(videoRepository.findSliceByTitleContaining(title, pageable));
     }
 
     @Override
-    public Page<Video> findHotVideos(Pageable pageable) {
-        return videoRepository.findHotVideos(pageable);
+    @Transactional(readOnly = true)
+    public Slice<VideoSummary> findHotVideosSlice(Video.VideoType type, Pageable pageable) {
+        if (videoLeaderboard.canServe(pageable.getOffset())) {
+            Page<VideoSummary> videos = findHotVideosFromLeaderboard(type, pageable);
+            return new SliceImpl<>(videos.getContent(), pageable, videos.hasNext());
+        }
+        if (type != null) {
+            return mergePendingCounts(videoRepository.findHotVideoSliceByType(type, pageable));
+        }
+        return mergePendingCounts(videoRepository.findHotVideoSlice(pageable));
     }
 
     @Override
-    public Page<Video> findLatestVideos(Pageable pageable) {
-        return videoRepository.findLatestVideos(pageable);
+    @Transactional(readOnly = true)
+    public Slice<VideoSummary> findLatestVideosSlice(Video.VideoType type, Pageable pageable) {
+        if (type != null) {
+            return mergePendingCounts(videoRepository.findLatestVideoSliceByType(type, pageable));
+        }
+        return mergePendingCounts(videoRepository.findLatestVideoSlice(pageable));
     }
 
     @Override
-    public Page<Video> findHotVideosByType(Video.VideoType type, Pageable pageable) {
-        return videoRepository.findHotVideosByType(type, pageable);
+    @Transactional(readOnly = true)
+    public CursorSlice<VideoSummary> findLatestVideosByCursor(Video.VideoType type, String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<VideoSummary> videos = type != null
+                ? videoRepository.findLatestVideosByTypeBefore(type, pageCursor.getDateValue(), pageCursor.getId(), limit)
+                : videoRepository.findLatestVideosBefore(pageCursor.getDateValue(), pageCursor.getId(), limit);
+        CursorSlice<VideoSummary> slice = CursorSlice.of(videos, size,
+                video -> PageCursor.encode(video.getCreatedAt(), video.getId()));
+        slice.getContent().forEach(this::mergePendingCounts);
+        return slice;
     }
 
     @Override
-    public Page<Video> findLatestVideosByType(Video.VideoType type, Pageable pageable) {
-        return videoRepository.findLatestVideosByType(type, pageable);
+    @Transactional(readOnly = true)
+    public CursorSlice<VideoSummary> findHotVideosByCursor(Video.VideoType type, String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<VideoSummary> videos = type != null
+                ? videoRepository.findHotVideosByTypeBefore(type, pageCursor.getIntValue(), pageCursor.getId(), limit)
+                : videoRepository.findHotVideosBefore(pageCursor.getIntValue(), pageCursor.getId(), limit);
+        // 游标使用数据库中的点赞数，需在合并未写回的增量之前生成
+        CursorSlice<VideoSummary> slice = CursorSlice.of(videos, size,
+                video -> PageCursor.encode(nullToZero(video.getLikesCount()), video.getId()));
+        slice.getContent().forEach(this::mergePendingCounts);
+        return slice;
     }
 
     @Override
     @Transactional
     public Video updateVideo(Video video) {
-        return videoRepository.save(video);
+        Video updatedVideo = videoRepository.save(video);
+        videoCache.evict(updatedVideo.getId());
+        videoLeaderboard.put(updatedVideo);
+        videoSearchIndex.put(updatedVideo);
+        videoTitleSuggester.put(updatedVideo);
+        countCache.evictByPrefix(VIDEO_COUNT_KEY_PREFIX);
+        responseBodyCache.evictByPrefix(ResponseBodyCache.VIDEO_CATALOG_PREFIX);
+        return updatedVideo;
     }
 
     @Override
     @Transactional
     public void deleteVideo(Integer id) {
         videoRepository.deleteById(id);
+        videoCache.evict(id);
+        videoLeaderboard.remove(id);
+        videoSearchIndex.remove(id);
+        videoTitleSuggester.remove(id);
+        countCache.evictByPrefix(VIDEO_COUNT_KEY_PREFIX);
+        responseBodyCache.evictByPrefix(ResponseBodyCache.VIDEO_CATALOG_PREFIX);
     }
 
     @Override
     @Transactional
     public void incrementLikesCount(Integer videoId) {
-        Optional<Video> videoOptional = videoRepository.findById(videoId);
-        if (videoOptional.isPresent()) {
-            Video video = videoOptional.get();
-            video.setLikesCount(video.getLikesCount() + 1);
-            videoRepository.save(video);
-        }
+        videoCounterBuffer.addLikes(videoId, 1);
+        videoLeaderboard.adjustLikes(videoId, 1);
     }
 
     @Override
     @Transactional
     public void decrementLikesCount(Integer videoId) {
-        Optional<Video> videoOptional = videoRepository.findById(videoId);
-        if (videoOptional.isPresent()) {
-            Video video = videoOptional.get();
-            if (video.getLikesCount() > 0) {
-                video.setLikesCount(video.getLikesCount() - 1);
-                videoRepository.save(video);
-            }
-        }
+        videoCounterBuffer.addLikes(videoId, -1);
+        videoLeaderboard.adjustLikes(videoId, -1);
     }
 
     @Override
     @Transactional
     public void incrementCommentsCount(Integer videoId) {
-        Optional<Video> videoOptional = videoRepository.findById(videoId);
-        if (videoOptional.isPresent()) {
-            Video video = videoOptional.get();
-            video.setCommentsCount(video.getCommentsCount() + 1);
-            videoRepository.save(video);
-        }
+        videoCounterBuffer.addComments(videoId, 1);
     }
 
     @Override
     @Transactional
     public void decrementCommentsCount(Integer videoId) {
-        Optional<Video> videoOptional = videoRepository.findById(videoId);
-        if (videoOptional.isPresent()) {
-            Video video = videoOptional.get();
-            if (video.getCommentsCount() > 0) {
-                video.setCommentsCount(video.getCommentsCount() - 1);
-                videoRepository.save(video);
+        videoCounterBuffer.addComments(videoId, -1);
+    }
+
+    // 从内存排行榜取出本页视频ID，再按ID批量获取视频并保持排行顺序
+    private Page<VideoSummary> findHotVideosFromLeaderboard(Video.VideoType type, Pageable pageable) {
+        List<Integer> videoIds = videoLeaderboard.getPage(type, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findSummariesInOrder(videoIds), pageable, videoLeaderboard.size(type));
+    }
+
+    // 从标题索引取出按相关度排序的前offset + size个视频ID，再按ID批量获取本页视频
+    private Page<VideoSummary> searchVideosFromIndex(Video.VideoType type, String title, Pageable pageable) {
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        VideoSearchIndex.Result result = videoSearchIndex.search(type, title, limit);
+        List<Integer> matchedIds = result.getVideoIds();
+        int from = (int) Math.min(pageable.getOffset(), matchedIds.size());
+        return new PageImpl<>(findSummariesInOrder(matchedIds.subList(from, matchedIds.size())), pageable,
+                result.getTotal());
+    }
+
+    // 按ID批量获取视频（经由视频缓存）并保持传入的顺序，转换为列表项，不存在的ID会被忽略
+    private List<VideoSummary> findSummariesInOrder(List<Integer> videoIds) {
+        Map<Integer, Video> videoMap = new HashMap<>();
+        for (Video video : findVideosByIds(videoIds)) {
+            videoMap.put(video.getId(), video);
+        }
+
+        List<VideoSummary> videos = new ArrayList<>(videoIds.size());
+        for (Integer videoId : videoIds) {
+            Video video = videoMap.get(videoId);
+            if (video != null) {
+                videos.add(VideoSummary.of(video));
             }
         }
+        return videos;
+    }
+
+    // 合并写缓冲中尚未写回的计数增量
+    private Video mergePendingCounts(Video video) {
+        long pendingLikes = videoCounterBuffer.getPendingLikes(video.getId());
+        if (pendingLikes != 0) {
+            video.setLikesCount((int) Math.max(0, nullToZero(video.getLikesCount()) + pendingLikes));
+        }
+        long pendingComments = videoCounterBuffer.getPendingComments(video.getId());
+        if (pendingComments != 0) {
+            video.setCommentsCount((int) Math.max(0, nullToZero(video.getCommentsCount()) + pendingComments));
+        }
+        return video;
+    }
+
+    private void mergePendingCounts(VideoSummary video) {
+        long pendingLikes = videoCounterBuffer.getPendingLikes(video.getId());
+        if (pendingLikes != 0) {
+            video.setLikesCount((int) Math.max(0, nullToZero(video.getLikesCount()) + pendingLikes));
+        }
+        long pendingComments = videoCounterBuffer.getPendingComments(video.getId());
+        if (pendingComments != 0) {
+            video.setCommentsCount((int) Math.max(0, nullToZero(video.getCommentsCount()) + pendingComments));
+        }
+    }
+
+    private <S extends Slice<VideoSummary>> S mergePendingCounts(S videos) {
+        videos.forEach(this::mergePendingCounts);
+        return videos;
+    }
+
+    // 用Slice结果和缓存的总数组装分页结果
+    private Page<VideoSummary> withCachedTotal(Slice<VideoSummary> videos, Pageable pageable, String countKey,
+                                               Supplier<Long> counter) {
+        return new PageImpl<>(videos.getContent(), pageable, countCache.get(countKey, counter));
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
     }
-} 
\ No newline at end of file
+}
@@ -1,156 +1,273 @@
 package com.example.kidappapi.service.impl;
 
+import com.example.kidappapi.component.WatchProgressIngestBuffer;
+import com.example.kidappapi.model.dto.CursorSlice;
 import com.example.kidappapi.model.dto.WatchHistoryDTO;
 import com.example.kidappapi.model.entity.Video;
 import com.example.kidappapi.model.entity.WatchHistory;
 import com.example.kidappapi.repository.WatchHistoryRepository;
 import com.example.kidappapi.service.VideoService;
 import com.example.kidappapi.service.WatchHistoryService;
+import com.example.kidappapi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class WatchHistoryServiceImpl implements WatchHistoryService {
 
+    // 插入或更新进度（单条语句，依赖user_id+video_id唯一约束）；
+    // 更新时id = LAST_INSERT_ID(id)让驱动把已有记录的ID作为生成的键返回
+    private static final String UPSERT_SQL = "INSERT INTO watch_history (user_id, video_id, progress, watched_at) "
+            + "VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), progress = VALUES(progress), watched_at = VALUES(watched_at)";
+
+    private static final String FIND_ID_SQL = "SELECT id FROM watch_history WHERE user_id = ? AND video_id = ?";
+
     private final WatchHistoryRepository watchHistoryRepository;
     private final VideoService videoService;
+    private final WatchProgressIngestBuffer watchProgressIngestBuffer;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public WatchHistoryServiceImpl(
             WatchHistoryRepository watchHistoryRepository,
-            VideoService videoService) {
+            VideoService videoService,
+            WatchProgressIngestBuffer watchProgressIngestBuffer,
+            JdbcTemplate jdbcTemplate) {
         this.watchHistoryRepository = watchHistoryRepository;
         this.videoService = videoService;
+        this.watchProgressIngestBuffer = watchProgressIngestBuffer;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     @Transactional
     public WatchHistory saveWatchHistory(WatchHistory watchHistory) {
-        // 检查是否已存在该用户观看该视频的记录
-        Optional<WatchHistory> existingRecord = watchHistoryRepository.findByUserIdAndVideoId(
-                watchHistory.getUserId(), watchHistory.getVideoId());
-        
-        if (existingRecord.isPresent()) {
-            // 更新已有记录
-            WatchHistory record = existingRecord.get();
-            record.setProgress(watchHistory.getProgress());
-            // watchedAt会通过@PreUpdate自动更新
-            return watchHistoryRepository.save(record);
-        } else {
-            // 创建新记录
-            return watchHistoryRepository.save(watchHistory);
-        }
+        // 本次保存的进度更新，丢弃缓冲区中较早的上报
+        watchProgressIngestBuffer.discard(watchHistory.getUserId(), watchHistory.getVideoId());
+
+        return upsertWatchHistory(watchHistory.getUserId(), watchHistory.getVideoId(), watchHistory.getProgress());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<WatchHistory> findWatchHistoryById(Integer id) {
         return watchHistoryRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<WatchHistoryDTO> getUserWatchHistory(Integer userId) {
         // 获取用户的所有观看历史
         List<WatchHistory> watchHistoryList = watchHistoryRepository.findByUserIdOrderByWatchedAtDesc(userId);
         
         // 将观看历史转换为带有视频信息的DTO
-        return watchHistoryList.stream()
-                .map(this::convertToWatchHistoryDTO)
-                .collect(Collectors.toList());
+        return convertToWatchHistoryDTOs(watchHistoryList);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<WatchHistoryDTO> getUserWatchHistoryPaged(Integer userId, Pageable pageable) {
         // 分页获取用户观看历史
         Page<WatchHistory> watchHistoryPage = watchHistoryRepository.findByUserId(userId, pageable);
         
         // 将观看历史转换为带有视频信息的DTO
-        List<WatchHistoryDTO> watchHistoryDTOs = watchHistoryPage.getContent().stream()
-                .map(this::convertToWatchHistoryDTO)
-                .collect(Collectors.toList());
+        List<WatchHistoryDTO> watchHistoryDTOs = convertToWatchHistoryDTOs(watchHistoryPage.getContent());
         
         return new PageImpl<>(watchHistoryDTOs, pageable, watchHistoryPage.getTotalElements());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<WatchHistoryDTO> getUserWatchHistorySlice(Integer userId, Pageable pageable) {
+        Slice<WatchHistory> watchHistorySlice = watchHistoryRepository.findSliceByUserId(userId, pageable);
+        
+        // 将观看历史转换为带有视频信息的DTO
+        List<WatchHistoryDTO> watchHistoryDTOs = convertToWatchHistoryDTOs(watchHistorySlice.getContent());
+        
+        return new SliceImpl<>(watchHistoryDTOs, pageable, watchHistorySlice.hasNext());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<WatchHistoryDTO> getUserWatchHistoryByCursor(Integer userId, String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<WatchHistory> watchHistoryList = watchHistoryRepository.findByUserIdBefore(
+                userId, pageCursor.getDateValue(), pageCursor.getId(), PageRequest.of(0, size + 1));
+        CursorSlice<WatchHistory> slice = CursorSlice.of(watchHistoryList, size,
+                watchHistory -> PageCursor.encode(watchHistory.getWatchedAt(), watchHistory.getId()));
+        
+        // 将观看历史转换为带有视频信息的DTO
+        return new CursorSlice<>(convertToWatchHistoryDTOs(slice.getContent()), slice.isHasNext(), slice.getNextCursor());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<WatchHistoryDTO> getUserRecentWatchHistory(Integer userId) {
         // 获取用户最近7天的观看历史
         List<WatchHistory> recentHistory = watchHistoryRepository.findUserRecentWatchHistory(userId);
         
         // 将观看历史转换为带有视频信息的DTO
-        return recentHistory.stream()
-                .map(this::convertToWatchHistoryDTO)
-                .collect(Collectors.toList());
+        return convertToWatchHistoryDTOs(recentHistory);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean hasUserWatchedVideo(Integer userId, Integer videoId) {
+        if (watchProgressIngestBuffer.getPendingProgress(userId, videoId) != null) {
+            return true;
+        }
         return watchHistoryRepository.findByUserIdAndVideoId(userId, videoId).isPresent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer getUserVideoProgress(Integer userId, Integer videoId) {
+        // 优先返回尚未写入数据库的最新上报进度
+        Integer pendingProgress = watchProgressIngestBuffer.getPendingProgress(userId, videoId);
+        if (pendingProgress != null) {
+            return pendingProgress;
+        }
         Optional<WatchHistory> watchHistory = watchHistoryRepository.findByUserIdAndVideoId(userId, videoId);
         return watchHistory.map(WatchHistory::getProgress).orElse(0);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, Integer> getUserVideosProgress(Integer userId, Collection<Integer> videoIds) {
+        Map<Integer, Integer> progressMap = new HashMap<>();
+        if (videoIds == null || videoIds.isEmpty()) {
+            return progressMap;
+        }
+        for (Object[] row : watchHistoryRepository.findProgressByUserIdAndVideoIds(userId, videoIds)) {
+            Integer progress = (Integer) row[1];
+            progressMap.put((Integer) row[0], progress != null ? progress : 0);
+        }
+        for (Integer videoId : videoIds) {
+            Integer pendingProgress = watchProgressIngestBuffer.getPendingProgress(userId, videoId);
+            if (pendingProgress != null) {
+                progressMap.put(videoId, pendingProgress);
+            }
+        }
+        return progressMap;
+    }
+
     @Override
     @Transactional
     public WatchHistory updateWatchProgress(Integer userId, Integer videoId, Integer progress) {
-        Optional<WatchHistory> watchHistoryOptional = watchHistoryRepository.findByUserIdAndVideoId(userId, videoId);
-        
-        WatchHistory watchHistory;
-        if (watchHistoryOptional.isPresent()) {
-            // 更新已有记录
-            watchHistory = watchHistoryOptional.get();
-            watchHistory.setProgress(progress);
-        } else {
-            // 创建新记录
-            watchHistory = new WatchHistory();
+        // 启用写合并时只记录最新进度并立即返回，由缓冲区定时批量写入
+        if (watchProgressIngestBuffer.isEnabled()) {
+            WatchHistory watchHistory = new WatchHistory();
             watchHistory.setUserId(userId);
             watchHistory.setVideoId(videoId);
             watchHistory.setProgress(progress);
+            watchHistory.setWatchedAt(watchProgressIngestBuffer.submit(userId, videoId, progress));
+            return watchHistory;
         }
-        
-        return watchHistoryRepository.save(watchHistory);
+
+        return upsertWatchHistory(userId, videoId, progress);
     }
 
     @Override
     @Transactional
     public void deleteWatchHistory(Integer id) {
+        // 先丢弃该用户该视频尚未写入的进度，避免删除后被缓冲区重新写入
+        watchHistoryRepository.findById(id).ifPresent(watchHistory ->
+                watchProgressIngestBuffer.discard(watchHistory.getUserId(), watchHistory.getVideoId()));
         watchHistoryRepository.deleteById(id);
     }
 
     @Override
     @Transactional
     public void deleteUserVideoWatchHistory(Integer userId, Integer videoId) {
+        watchProgressIngestBuffer.discard(userId, videoId);
         watchHistoryRepository.deleteByUserIdAndVideoId(userId, videoId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long getWatchedVideosCount(Integer userId) {
         return watchHistoryRepository.countDistinctVideosByUserId(userId);
     }
     
-    // 将WatchHistory转换为WatchHistoryDTO，包含视频信息
-    private WatchHistoryDTO convertToWatchHistoryDTO(WatchHistory watchHistory) {
-        // 获取视频信息
-        Optional<Video> videoOptional = videoService.findVideoById(watchHistory.getVideoId());
-        
-        Video video = null;
-        if (videoOptional.isPresent()) {
-            video = videoOptional.get();
+    // 以单条INSERT ... ON DUPLICATE KEY UPDATE写入观看进度，并发上报不会产生重复记录；
+    // 不回读记录，返回的观看历史只包含本次写入的字段（进度和观看时间与写入的值一致），ID为null
+    private WatchHistory upsertWatchHistory(Integer userId, Integer videoId, Integer progress) {
+        WatchHistory watchHistory = new WatchHistory();
+        watchHistory.setUserId(userId);
+        watchHistory.setVideoId(videoId);
+        watchHistory.setProgress(progress != null ? progress : 0);
+        watchHistory.setWatchedAt(new Date());
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, userId);
+            statement.setInt(2, videoId);
+            statement.setInt(3, watchHistory.getProgress());
+            statement.setTimestamp(4, new Timestamp(watchHistory.getWatchedAt().getTime()));
+            return statement;
+        }, keyHolder);
+        watchHistory.setId(generatedId(keyHolder, userId, videoId));
+        return watchHistory;
+    }
+
+    // 更新路径影响行数为2时MySQL驱动会按行数返回两个键（第二个是推算出的无效值），只取第一个；
+    // 进度和观看时间都未变化时影响行数为0、没有返回键，此时在同一事务中按唯一键查询
+    private Integer generatedId(KeyHolder keyHolder, Integer userId, Integer videoId) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (!keys.isEmpty()) {
+            Object key = keys.get(0).values().iterator().next();
+            if (key instanceof Number) {
+                return ((Number) key).intValue();
+            }
         }
-        
-        // 创建并返回DTO
-        return new WatchHistoryDTO(watchHistory, video);
+        return jdbcTemplate.queryForObject(FIND_ID_SQL, Integer.class, userId, videoId);
+    }
+
+    // 批量将WatchHistory转换为WatchHistoryDTO，一次查询取回所有涉及的视频
+    private List<WatchHistoryDTO> convertToWatchHistoryDTOs(List<WatchHistory> watchHistoryList) {
+        if (watchHistoryList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 收集去重后的视频ID
+        Set<Integer> videoIds = watchHistoryList.stream()
+                .map(WatchHistory::getVideoId)
+                .collect(Collectors.toSet());
+
+        // 一次IN查询获取所有视频信息
+        Map<Integer, Video> videoMap = new HashMap<>();
+        for (Video video : videoService.findVideosByIds(videoIds)) {
+            videoMap.put(video.getId(), video);
+        }
+
+        // 创建并返回DTO，视频已被删除时视频信息为空
+        return watchHistoryList.stream()
+                .map(watchHistory -> new WatchHistoryDTO(watchHistory, videoMap.get(watchHistory.getVideoId())))
+                .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
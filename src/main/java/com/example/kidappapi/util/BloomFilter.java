@@ -0,0 +1,93 @@
+package com.example.kidappapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的字符串布隆过滤器
+ * 不存在假阴性：mightContain返回false时一定未加入过；返回true时可能误判，需要再查询数据库确认
+ */
+public final class BloomFilter {
+
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLongArray bits;
+
+    /**
+     * @param expectedInsertions 预计加入的元素数
+     * @param falsePositiveRate 期望误判率
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.numBits = optimalNumBits(expectedInsertions, falsePositiveRate);
+        this.numHashes = optimalNumHashes(expectedInsertions, numBits);
+        this.bits = new AtomicLongArray((int) ((numBits + 63) >>> 6));
+    }
+
+    public void put(String value) {
+        for (long position : positions(value, numBits, numHashes)) {
+            int index = (int) (position >>> 6);
+            long mask = 1L << position;
+            long current;
+            do {
+                current = bits.get(index);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        for (long position : positions(value, numBits, numHashes)) {
+            if ((bits.get((int) (position >>> 6)) & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按预计元素数和误判率计算位数组长度
+     */
+    public static long optimalNumBits(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    }
+
+    /**
+     * 按预计元素数和位数组长度计算哈希函数个数
+     */
+    public static int optimalNumHashes(long expectedInsertions, long numBits) {
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    /**
+     * 计算元素对应的位下标（双重哈希），Redis位图共享过滤器时使用同样的下标
+     */
+    public static long[] positions(String value, long numBits, int numHashes) {
+        long hash = fnv1a64(value.getBytes(StandardCharsets.UTF_8));
+        long h1 = mix64(hash);
+        long h2 = mix64(hash ^ 0x9E3779B97F4A7C15L);
+        long[] positions = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, numBits);
+        }
+        return positions;
+    }
+
+    private static long fnv1a64(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
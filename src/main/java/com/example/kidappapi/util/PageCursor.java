@@ -0,0 +1,83 @@
+package com.example.kidappapi.util;
+
+import com.example.kidappapi.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 游标分页的不透明游标，记录上一页最后一条记录的排序值和ID
+ * 排序值为时间（毫秒）或计数，编码为URL安全的Base64字符串
+ */
+public final class PageCursor {
+
+    // 第一页使用的时间上界，足够大且仍在MySQL DATETIME范围内
+    private static final long FIRST_PAGE_MILLIS = 32503680000000L;
+
+    private final long sortValue;
+    private final int id;
+
+    private PageCursor(long sortValue, int id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * 第一页游标，排在所有记录之前
+     */
+    public static PageCursor first() {
+        return new PageCursor(Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 解析游标，空字符串表示第一页
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return first();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new PageCursor(Long.parseLong(decoded.substring(0, separator)),
+                    Integer.parseInt(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("分页游标无效");
+        }
+    }
+
+    /**
+     * 以时间和ID生成游标
+     */
+    public static String encode(Date sortValue, Integer id) {
+        return encode(sortValue.getTime(), id);
+    }
+
+    /**
+     * 以计数和ID生成游标
+     */
+    public static String encode(long sortValue, Integer id) {
+        String raw = sortValue + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Date getDateValue() {
+        return new Date(Math.min(sortValue, FIRST_PAGE_MILLIS));
+    }
+
+    /**
+     * 排序值本身（ID为Long的记录直接以ID作为排序值，例如用户）
+     */
+    public long getLongValue() {
+        return sortValue;
+    }
+
+    public int getIntValue() {
+        return (int) Math.min(sortValue, Integer.MAX_VALUE);
+    }
+
+    public int getId() {
+        return id;
+    }
+}
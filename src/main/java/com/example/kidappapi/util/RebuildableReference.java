@@ -0,0 +1,81 @@
+package com.example.kidappapi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 可从数据库整体重建、同时接受增量更新的内存结构引用
+ * 重建期间到达的增量更新先应用到当前结构并记录下来，新结构构建完成后重放这些更新再替换，
+ * 重建期间的更新不会丢失
+ */
+public final class RebuildableReference<T> {
+
+    // 首次重建完成前为null
+    private volatile T current;
+
+    // 重建期间记录的增量更新；不在重建时为null
+    private List<Consumer<T>> replayLog;
+
+    /**
+     * 当前结构，首次重建完成前为null
+     */
+    public T get() {
+        return current;
+    }
+
+    /**
+     * 在当前结构上应用更新，重建期间同时记录下来供重放
+     * 更新可能先后应用到旧结构和新结构，必须能在任一结构上独立执行
+     */
+    public synchronized void apply(Consumer<T> update) {
+        if (current != null) {
+            update.accept(current);
+        }
+        if (replayLog != null) {
+            replayLog.add(update);
+        }
+    }
+
+    /**
+     * 重建并替换当前结构，已有重建在进行时直接返回false
+     * 构建失败时异常抛给调用方，当前结构保持不变
+     */
+    public boolean rebuild(Supplier<T> builder) {
+        return rebuild(() -> null, ignored -> builder.get());
+    }
+
+    /**
+     * 重建并替换当前结构，startSnapshot在开始记录增量更新的同时（持有同一把锁）执行，
+     * 用于读取需要与增量更新对齐的状态（如尚未写回的计数增量），结果传给builder
+     */
+    public <S> boolean rebuild(Supplier<S> startSnapshot, Function<S, T> builder) {
+        S snapshot;
+        synchronized (this) {
+            if (replayLog != null) {
+                return false;
+            }
+            replayLog = new ArrayList<>();
+            try {
+                snapshot = startSnapshot.get();
+            } catch (RuntimeException e) {
+                replayLog = null;
+                throw e;
+            }
+        }
+        try {
+            T rebuilt = builder.apply(snapshot);
+            synchronized (this) {
+                replayLog.forEach(update -> update.accept(rebuilt));
+                current = rebuilt;
+            }
+            return true;
+        } finally {
+            synchronized (this) {
+                replayLog = null;
+            }
+        }
+    }
+}
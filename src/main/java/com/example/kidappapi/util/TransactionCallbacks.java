@@ -0,0 +1,51 @@
+package com.example.kidappapi.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 当前线程处于事务同步中时，在事务提交后执行action（回滚时不执行）；否则立即执行
+     * 用于缓存失效、内存索引更新等不能被回滚撤销的副作用
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 当前线程处于事务同步中时，提交后执行onCommit，回滚（或结果未知）后执行onRollback；否则立即执行onCommit
+     * 用于已经提前写入外部存储、回滚时需要撤销的操作
+     */
+    public static void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    } else {
+                        onRollback.run();
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.kidappapi.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+
+    // 调用方线程足够多，保证所有加载都落在同一个合并窗口内
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+    private final List<List<Integer>> batches = new ArrayList<>();
+    private BatchLoader<Integer, StringBuilder> loader;
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsAreMergedIntoOneBatch() throws Exception {
+        loader = newLoader(this::lookup, 200, 100, 5000);
+
+        List<CompletableFuture<Optional<StringBuilder>>> results = new ArrayList<>();
+        for (int key = 1; key <= 5; key++) {
+            int id = key;
+            results.add(CompletableFuture.supplyAsync(() -> loader.load(id), callers));
+        }
+        results.add(CompletableFuture.supplyAsync(() -> loader.load(1), callers));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("value-" + (i + 1), results.get(i).get(5, TimeUnit.SECONDS).get().toString());
+        }
+        assertEquals(1, batches.size());
+        assertEquals(5, batches.get(0).size());
+    }
+
+    @Test
+    void callersWaitingForTheSameKeyGetTheirOwnCopy() throws Exception {
+        loader = newLoader(this::lookup, 200, 100, 5000);
+
+        CompletableFuture<Optional<StringBuilder>> first = CompletableFuture.supplyAsync(() -> loader.load(7), callers);
+        CompletableFuture<Optional<StringBuilder>> second = CompletableFuture.supplyAsync(() -> loader.load(7), callers);
+        StringBuilder a = first.get(5, TimeUnit.SECONDS).get();
+        StringBuilder b = second.get(5, TimeUnit.SECONDS).get();
+
+        assertNotSame(a, b);
+        a.append("-changed");
+        assertEquals("value-7", b.toString());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void largeBatchesAreSplitAndMissingKeysAreEmpty() throws Exception {
+        loader = newLoader(keys -> {
+            Map<Integer, StringBuilder> found = lookup(keys);
+            found.remove(3);
+            return found;
+        }, 200, 2, 5000);
+
+        List<CompletableFuture<Optional<StringBuilder>>> results = new ArrayList<>();
+        for (int key = 1; key <= 5; key++) {
+            int id = key;
+            results.add(CompletableFuture.supplyAsync(() -> loader.load(id), callers));
+        }
+
+        assertFalse(results.get(2).get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(results.get(4).get(5, TimeUnit.SECONDS).isPresent());
+        for (List<Integer> batch : batches) {
+            assertTrue(batch.size() <= 2);
+        }
+    }
+
+    @Test
+    void waitingIsBoundedByTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        loader = newLoader(keys -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lookup(keys);
+        }, 1, 100, 50);
+
+        try {
+            assertThrows(QueryTimeoutException.class, () -> loader.load(1));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void slowBatchDoesNotDelayLaterWindows() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        loader = newLoader(keys -> {
+            if (keys.contains(1)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return lookup(keys);
+        }, 1, 100, 5000);
+
+        try {
+            CompletableFuture<Optional<StringBuilder>> slow = CompletableFuture.supplyAsync(() -> loader.load(1), callers);
+            Thread.sleep(50);
+
+            assertEquals("value-2", loader.load(2).get().toString());
+            assertFalse(slow.isDone());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private BatchLoader<Integer, StringBuilder> newLoader(Function<Collection<Integer>, Map<Integer, StringBuilder>> lookup,
+                                                          long windowMillis, int maxBatchSize, long timeoutMillis) {
+        return new BatchLoader<>("test-batch-loader", lookup, StringBuilder::new,
+                windowMillis, maxBatchSize, timeoutMillis, 2);
+    }
+
+    private synchronized Map<Integer, StringBuilder> lookup(Collection<Integer> keys) {
+        batches.add(new ArrayList<>(keys));
+        Map<Integer, StringBuilder> values = new HashMap<>();
+        for (Integer key : keys) {
+            values.put(key, new StringBuilder("value-" + key));
+        }
+        return values;
+    }
+}
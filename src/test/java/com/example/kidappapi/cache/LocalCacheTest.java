@@ -0,0 +1,48 @@
+package com.example.kidappapi.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        LocalCache<String, String> cache = new LocalCache<>(2, 60000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void expiredEntriesAreNotReturned() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>(10, 1);
+        cache.put("a", "1");
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void segmentedCacheStaysWithinCapacity() {
+        LocalCache<Integer, Integer> cache = new LocalCache<>(1024, 60000);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 1024);
+        assertEquals(9999, cache.get(9999));
+
+        cache.removeIf(key -> key % 2 == 1);
+        assertNull(cache.get(9999));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
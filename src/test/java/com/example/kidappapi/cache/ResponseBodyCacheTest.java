@@ -0,0 +1,66 @@
+package com.example.kidappapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseBodyCacheTest {
+
+    private final ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), 100, 60);
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<ResponseBodyCache.CachedBody>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> cache.get("page", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "body";
+                }), callers));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            ResponseBodyCache.CachedBody first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<ResponseBodyCache.CachedBody> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void bodyLoadedDuringEvictionIsNotCached() {
+        ResponseBodyCache.CachedBody stale = cache.get("video:catalog:hot", () -> {
+            // 生成期间视频发生变更
+            cache.evictByPrefix("video:catalog:");
+            return "old";
+        });
+        ResponseBodyCache.CachedBody fresh = cache.get("video:catalog:hot", () -> "new");
+
+        assertTrue(new String(stale.getBody()).contains("old"));
+        assertTrue(new String(fresh.getBody()).contains("new"));
+    }
+}
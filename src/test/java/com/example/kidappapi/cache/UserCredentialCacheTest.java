@@ -0,0 +1,47 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.model.dto.UserCredential;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserCredentialCacheTest {
+
+    private final UserCredentialCache cache = new UserCredentialCache(100, 60);
+
+    @Test
+    void accountsAreCachedCaseInsensitively() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("Alice", account -> {
+            loads.incrementAndGet();
+            return credentials("old-hash");
+        });
+        cache.get("alice", account -> {
+            loads.incrementAndGet();
+            return credentials("old-hash");
+        });
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void credentialsLoadedDuringEvictionAreNotCached() {
+        List<UserCredential> stale = cache.get("alice", account -> {
+            // 查询期间密码被修改
+            cache.evict("alice");
+            return credentials("old-hash");
+        });
+        List<UserCredential> fresh = cache.get("alice", account -> credentials("new-hash"));
+
+        assertEquals("old-hash", stale.get(0).getPassword());
+        assertEquals("new-hash", fresh.get(0).getPassword());
+    }
+
+    private static List<UserCredential> credentials(String password) {
+        return Collections.singletonList(new UserCredential(1L, "alice", "alice@example.com", password));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.kidappapi.cache;
+
+import com.example.kidappapi.model.dto.UserSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserSummaryCacheTest {
+
+    private final UserSummaryCache cache = new UserSummaryCache(100, 600);
+
+    @Test
+    void summaryLoadedDuringEvictionIsNotCached() {
+        Map<Long, UserSummary> stale = cache.getAll(Arrays.asList(1L, 2L), ids -> {
+            // 加载期间用户1修改了昵称
+            cache.evict(1L);
+            return Arrays.asList(new UserSummary(1L, "old", null), new UserSummary(2L, "bob", null));
+        });
+        Map<Long, UserSummary> fresh = cache.getAll(Arrays.asList(1L, 2L),
+                ids -> Collections.singletonList(new UserSummary(1L, "new", null)));
+
+        assertEquals("old", stale.get(1L).getNickname());
+        assertEquals("new", fresh.get(1L).getNickname());
+        assertEquals("bob", fresh.get(2L).getNickname());
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.model.entity.LikedVideo;
+import com.example.kidappapi.repository.LikedVideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikedVideoRedisStoreTest {
+
+    private FakeRedis redis;
+    private LikedVideoRepository likedVideoRepository;
+    private LikedVideoRedisStore store;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        likedVideoRepository = mock(LikedVideoRepository.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class, redis::answer);
+        store = new LikedVideoRedisStore(redisTemplate, likedVideoRepository,
+                mock(PlatformTransactionManager.class), true, 60);
+    }
+
+    @Test
+    void loadsOnceAndChecksRequestedIds() throws InterruptedException {
+        when(likedVideoRepository.findVideoIdsByUserId(1)).thenReturn(Arrays.asList(10, 11));
+
+        assertTrue(store.hasLiked(1, 10));
+        assertFalse(store.like(1, 11, () -> { }));
+        assertTrue(store.like(1, 12, () -> { }));
+        assertEquals(new HashSet<>(Arrays.asList(10, 12)), store.getLikedVideoIds(1, Arrays.asList(10, 12, 13)));
+
+        store.shutdown();
+        verify(likedVideoRepository, times(1)).findVideoIdsByUserId(1);
+    }
+
+    @Test
+    void expiredSetIsReloadedWithQueuedOperations() {
+        // 数据库查询看不到尚未写回的操作
+        when(likedVideoRepository.findVideoIdsByUserId(1)).thenReturn(Arrays.asList(10));
+        assertTrue(store.like(1, 12, () -> { }));
+        assertTrue(store.unlike(1, 10, () -> { }));
+
+        redis.expire(1);
+
+        assertTrue(store.hasLiked(1, 12));
+        assertFalse(store.hasLiked(1, 10));
+        verify(likedVideoRepository, times(2)).findVideoIdsByUserId(1);
+    }
+
+    @Test
+    void failedPersistIsUndoneAndCompensated() throws InterruptedException {
+        when(likedVideoRepository.findVideoIdsByUserId(1)).thenReturn(new ArrayList<>());
+        when(likedVideoRepository.save(any(LikedVideo.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        AtomicInteger compensations = new AtomicInteger();
+
+        assertTrue(store.like(1, 12, compensations::incrementAndGet));
+        store.shutdown();
+
+        verify(likedVideoRepository, times(3)).save(any(LikedVideo.class));
+        assertEquals(1, compensations.get());
+        assertFalse(store.hasLiked(1, 12));
+    }
+
+    @Test
+    void persistedOperationIsRemovedFromQueue() throws InterruptedException {
+        when(likedVideoRepository.findVideoIdsByUserId(1)).thenReturn(new ArrayList<>());
+
+        assertTrue(store.like(1, 12, () -> { }));
+        assertTrue(store.unlike(1, 12, () -> { }));
+        assertTrue(store.like(1, 13, () -> { }));
+        store.shutdown();
+
+        assertTrue(redis.pending(1).isEmpty());
+        assertNotNull(redis.version(1));
+    }
+
+    @Test
+    void loadIsRetriedWhenOperationIsPersistedDuringQuery() {
+        // 第一次查询期间有操作写回（版本号变化），查询结果可能缺少该操作，需要重新查询
+        when(likedVideoRepository.findVideoIdsByUserId(1)).thenAnswer(invocation -> {
+            redis.bumpVersion(1);
+            return Arrays.asList(10);
+        }).thenReturn(Arrays.asList(10, 11));
+
+        assertTrue(store.hasLiked(1, 11));
+        verify(likedVideoRepository, times(2)).findVideoIdsByUserId(1);
+    }
+
+    /**
+     * 按脚本语义模拟Redis（忽略过期时间，过期由expire显式触发）
+     */
+    private static class FakeRedis {
+
+        private final Map<String, Set<String>> sets = new HashMap<>();
+        private final Map<String, Map<String, String>> hashes = new HashMap<>();
+        private final Map<String, String> strings = new HashMap<>();
+
+        synchronized void expire(Integer userId) {
+            sets.keySet().removeIf(key -> key.endsWith("{" + userId + "}") && key.startsWith("liked:user:"));
+        }
+
+        synchronized Map<String, String> pending(Integer userId) {
+            return new HashMap<>(hashes.getOrDefault("liked:pending:{" + userId + "}", new HashMap<>()));
+        }
+
+        synchronized String version(Integer userId) {
+            return strings.get("liked:version:{" + userId + "}");
+        }
+
+        synchronized void bumpVersion(Integer userId) {
+            strings.merge("liked:version:{" + userId + "}", "1",
+                    (current, one) -> String.valueOf(Long.parseLong(current) + 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized Object answer(InvocationOnMock invocation) {
+            Object[] raw = invocation.getRawArguments();
+            if (!"execute".equals(invocation.getMethod().getName()) || !(raw[0] instanceof RedisScript)) {
+                throw new UnsupportedOperationException(invocation.getMethod().toString());
+            }
+            RedisScript<?> script = (RedisScript<?>) raw[0];
+            List<String> keys = (List<String>) raw[1];
+            Object[] args = raw.length > 2 && raw[2] != null ? (Object[]) raw[2] : new Object[0];
+            Set<String> set = sets.get(keys.get(0));
+            Map<String, String> pending = hashes.computeIfAbsent(keys.get(1), key -> new HashMap<>());
+
+            if (script == LikedVideoRedisStore.VERSION_SCRIPT) {
+                return strings.get(keys.get(2));
+            }
+            if (script == LikedVideoRedisStore.LOAD_SCRIPT) {
+                if (set != null) {
+                    return 0L;
+                }
+                if (!args[1].equals(strings.getOrDefault(keys.get(2), ""))) {
+                    return -1L;
+                }
+                set = new HashSet<>();
+                set.add("-");
+                for (int i = 2; i < args.length; i++) {
+                    set.add((String) args[i]);
+                }
+                for (Map.Entry<String, String> entry : pending.entrySet()) {
+                    if (entry.getValue().startsWith("1")) {
+                        set.add(entry.getKey());
+                    } else {
+                        set.remove(entry.getKey());
+                    }
+                }
+                sets.put(keys.get(0), set);
+                return 1L;
+            }
+            if (script == LikedVideoRedisStore.MUTATE_SCRIPT) {
+                if (set == null) {
+                    return -1L;
+                }
+                String videoId = (String) args[0];
+                String op = (String) args[2];
+                boolean changed = op.startsWith("1") ? set.add(videoId) : set.remove(videoId);
+                if (changed) {
+                    pending.put(videoId, op);
+                }
+                return changed ? 1L : 0L;
+            }
+            if (script == LikedVideoRedisStore.CHECK_SCRIPT) {
+                if (set == null) {
+                    return new ArrayList<>(Arrays.asList(-1L));
+                }
+                List<Long> result = new ArrayList<>();
+                for (Object videoId : args) {
+                    result.add(set.contains(videoId) ? 1L : 0L);
+                }
+                return result;
+            }
+            if (script == LikedVideoRedisStore.ACK_SCRIPT) {
+                if (!args[1].equals(pending.get(args[0]))) {
+                    return 0L;
+                }
+                pending.remove(args[0]);
+                strings.merge(keys.get(2), "1", (current, one) -> String.valueOf(Long.parseLong(current) + 1));
+                return 1L;
+            }
+            if (script == LikedVideoRedisStore.REPAIR_SCRIPT) {
+                if (!args[1].equals(pending.get(args[0]))) {
+                    return 0L;
+                }
+                pending.remove(args[0]);
+                sets.remove(keys.get(0));
+                return 1L;
+            }
+            throw new UnsupportedOperationException(script.getScriptAsString());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.kidappapi.component;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    // 测试使用较小的迭代次数，格式与生产配置相同
+    private final PasswordHasher hasher = new PasswordHasher(1000, 1, 10, 5000, 100);
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void hashUsesStoredFormatWithRandomSalt() {
+        String hashed = hasher.hash("secret");
+
+        String[] parts = hashed.split("\\$");
+        assertEquals(4, parts.length);
+        assertEquals("pbkdf2", parts[0]);
+        assertEquals("1000", parts[1]);
+        assertTrue(hasher.isHashed(hashed));
+        assertNotEquals(hashed, hasher.hash("secret"));
+    }
+
+    @Test
+    void matchesHashedAndLegacyPlainPasswords() {
+        String hashed = hasher.hash("secret");
+
+        assertTrue(hasher.matches("secret", hashed));
+        assertFalse(hasher.matches("Secret", hashed));
+        assertTrue(hasher.matches("secret", "secret"));
+        assertFalse(hasher.matches("secret", "other"));
+        assertFalse(hasher.matches(null, hashed));
+    }
+
+    @Test
+    void needsRehashForPlainPasswordsAndOtherIterations() {
+        PasswordHasher stronger = new PasswordHasher(2000, 1, 10, 5000, 100);
+        try {
+            String hashed = hasher.hash("secret");
+
+            assertFalse(hasher.needsRehash(hashed));
+            assertTrue(stronger.needsRehash(hashed));
+            assertTrue(hasher.needsRehash("secret"));
+            // 旧迭代次数的哈希仍能校验通过，登录成功后再重新哈希
+            assertTrue(stronger.matches("secret", hashed));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    void malformedHashDoesNotMatch() {
+        assertFalse(hasher.matches("secret", "pbkdf2$abc$AAAA$AAAA"));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$%%%$AAAA"));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$AAAA$%%%"));
+        assertFalse(hasher.matches("secret", "pbkdf2$0$AAAA$AAAA"));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$AAAA"));
+    }
+}
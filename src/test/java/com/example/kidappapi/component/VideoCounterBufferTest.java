@@ -0,0 +1,135 @@
+package com.example.kidappapi.component;
+
+import com.example.kidappapi.cache.VideoCache;
+import com.example.kidappapi.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VideoCounterBufferTest {
+
+    private VideoCache videoCache;
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private VideoCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        videoCache = mock(VideoCache.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        buffer = new VideoCounterBuffer(mock(VideoRepository.class), videoCache, jdbcTemplate,
+                transactionManager, mock(EntityManager.class), true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesMergedDeltasInOneTransactionAndEvictsCache() {
+        buffer.addLikes(1, 1);
+        buffer.addLikes(1, 2);
+        buffer.addComments(1, 1);
+        buffer.addComments(2, -1);
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        List<Object[]> batchArgs = captor.getValue();
+        assertEquals(2, batchArgs.size());
+        assertArrayEquals(new Object[]{3L, 1L, 1}, batchArgs.get(0));
+        assertArrayEquals(new Object[]{0L, -1L, 2}, batchArgs.get(1));
+        verify(transactionManager).commit(any());
+        verify(videoCache).evict(1);
+        verify(videoCache).evict(2);
+        assertEquals(0, buffer.getPendingLikes(1));
+        assertEquals(0, buffer.getPendingComments(2));
+    }
+
+    @Test
+    void failedFlushRestoresDeltasExactlyOnce() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        buffer.addLikes(1, 5);
+        buffer.addComments(1, 2);
+
+        buffer.flush();
+
+        verify(transactionManager).rollback(any());
+        verify(videoCache, never()).evict(any());
+        assertEquals(5, buffer.getPendingLikes(1));
+        assertEquals(2, buffer.getPendingComments(1));
+
+        // 重试时写回的仍是原增量，不会翻倍
+        buffer.flush();
+        assertEquals(5, buffer.getPendingLikes(1));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentUpdatesDuringFlushAreNotLost() throws Exception {
+        AtomicLong written = new AtomicLong();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            for (Object[] args : (List<Object[]>) invocation.getArgument(1)) {
+                written.addAndGet((Long) args[0]);
+            }
+            return new int[0];
+        });
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[4];
+            for (int t = 0; t < tasks.length; t++) {
+                tasks[t] = CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        buffer.addLikes(1, 1);
+                    }
+                }, writers);
+            }
+            while (!CompletableFuture.allOf(tasks).isDone()) {
+                buffer.flush();
+            }
+            CompletableFuture.allOf(tasks).get(10, TimeUnit.SECONDS);
+        } finally {
+            writers.shutdownNow();
+        }
+        buffer.flush();
+
+        assertEquals(40000, written.get());
+        assertEquals(0, buffer.getPendingLikes(1));
+    }
+
+    @Test
+    void deltasThatCancelOutAreNotWritten() {
+        buffer.addLikes(1, 1);
+        buffer.addLikes(1, -1);
+
+        buffer.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(0, buffer.getPendingLikes(1));
+    }
+}
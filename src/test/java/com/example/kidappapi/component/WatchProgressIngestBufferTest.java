@@ -0,0 +1,71 @@
+package com.example.kidappapi.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchProgressIngestBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private WatchProgressIngestBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        buffer = new WatchProgressIngestBuffer(jdbcTemplate, true);
+    }
+
+    @Test
+    void discardWaitsForInFlightFlush() throws Exception {
+        CountDownLatch flushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFlush = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            flushStarted.countDown();
+            releaseFlush.await();
+            return new int[]{1};
+        });
+        buffer.submit(1, 2, 30);
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> discard = CompletableFuture.runAsync(() -> buffer.discard(1, 2));
+
+        // 已取出该进度的写入完成前，删除不能开始
+        Thread.sleep(100);
+        assertFalse(discard.isDone());
+
+        releaseFlush.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        discard.get(5, TimeUnit.SECONDS);
+        assertNull(buffer.getPendingProgress(1, 2));
+    }
+
+    @Test
+    void discardedProgressIsNotRetriedAfterFailedFlush() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        buffer.submit(1, 2, 30);
+
+        buffer.flush();
+        buffer.discard(1, 2);
+        buffer.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertNull(buffer.getPendingProgress(1, 2));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.kidappapi.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primaryPool;
+    private DataSource replicaPool;
+    private Statement primaryStatement;
+    private Statement replicaStatement;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryStatement = mock(Statement.class);
+        replicaStatement = mock(Statement.class);
+        primaryPool = pool(primaryStatement);
+        replicaPool = pool(replicaStatement);
+
+        // 与ReplicaDataSourceConfig.dataSource()相同的组装方式
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryPool);
+        targets.put(ReplicaRoutingDataSource.REPLICA, replicaPool);
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryPool);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routingDataSource);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void writeAfterReadOnlyCallInSameRequestGoesToPrimary() throws SQLException {
+        // 同一请求中：先查询（只读事务），再删除（读写事务）
+        readOnlyTransaction.execute(status -> {
+            jdbcTemplate.execute("SELECT 1");
+            return null;
+        });
+        readWriteTransaction.execute(status -> jdbcTemplate.update("DELETE FROM comments WHERE id = 1"));
+
+        verify(replicaStatement).execute("SELECT 1");
+        verify(primaryStatement).executeUpdate("DELETE FROM comments WHERE id = 1");
+        verify(replicaStatement, never()).executeUpdate("DELETE FROM comments WHERE id = 1");
+        verify(replicaPool, times(1)).getConnection();
+        verify(primaryPool, times(1)).getConnection();
+    }
+
+    @Test
+    void openInViewIsDisabled() throws Exception {
+        // 开启时整个请求共用一个Session及其连接，只读事务之后的写操作会落到副本
+        String openInView = PropertiesLoaderUtils
+                .loadProperties(new ClassPathResource("application.properties"))
+                .getProperty("spring.jpa.open-in-view");
+        assertEquals("false", openInView);
+    }
+
+    private static DataSource pool(Statement statement) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(connection);
+        return pool;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.kidappapi.model.dto;
+
+import com.example.kidappapi.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorSliceTest {
+
+    @Test
+    void extraRowMeansNextPageWithCursorOfLastReturnedRow() {
+        CursorSlice<Integer> slice = CursorSlice.of(Arrays.asList(5, 4, 3), 2, String::valueOf);
+
+        assertEquals(Arrays.asList(5, 4), slice.getContent());
+        assertEquals(2, slice.getSize());
+        assertTrue(slice.isHasNext());
+        assertEquals("4", slice.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorSlice<Integer> exact = CursorSlice.of(Arrays.asList(5, 4), 2, String::valueOf);
+        assertFalse(exact.isHasNext());
+        assertNull(exact.getNextCursor());
+
+        CursorSlice<Integer> empty = CursorSlice.of(Collections.emptyList(), 2, String::valueOf);
+        assertEquals(0, empty.getSize());
+        assertFalse(empty.isHasNext());
+        assertNull(empty.getNextCursor());
+    }
+
+    @Test
+    void nonPositiveSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CursorSlice.of(Arrays.asList(1), 0, String::valueOf));
+        assertThrows(IllegalArgumentException.class, () -> CursorSlice.of(Arrays.asList(1), -1, String::valueOf));
+    }
+
+    @Test
+    void cursorSizeIsLimitedToMaxSize() {
+        assertDoesNotThrow(() -> CursorSlice.checkSize(1));
+        assertDoesNotThrow(() -> CursorSlice.checkSize(CursorSlice.MAX_SIZE));
+        assertThrows(InvalidCursorException.class, () -> CursorSlice.checkSize(0));
+        assertThrows(InvalidCursorException.class, () -> CursorSlice.checkSize(CursorSlice.MAX_SIZE + 1));
+    }
+}
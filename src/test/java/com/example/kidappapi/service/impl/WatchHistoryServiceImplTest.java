@@ -0,0 +1,98 @@
+package com.example.kidappapi.service.impl;
+
+import com.example.kidappapi.component.WatchProgressIngestBuffer;
+import com.example.kidappapi.model.entity.WatchHistory;
+import com.example.kidappapi.repository.WatchHistoryRepository;
+import com.example.kidappapi.service.VideoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchHistoryServiceImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private WatchHistoryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new WatchHistoryServiceImpl(mock(WatchHistoryRepository.class), mock(VideoService.class),
+                mock(WatchProgressIngestBuffer.class), jdbcTemplate);
+    }
+
+    @Test
+    void insertReturnsGeneratedId() throws Exception {
+        returnGeneratedKeys(7);
+
+        WatchHistory saved = service.saveWatchHistory(watchHistory(30));
+
+        assertEquals(7, saved.getId());
+        assertEquals(30, saved.getProgress());
+
+        // 同一条语句在更新时把已有记录的ID作为生成的键返回
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(creator.capture(), any(KeyHolder.class));
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS)))
+                .thenReturn(mock(PreparedStatement.class));
+        creator.getValue().createPreparedStatement(connection);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture(), eq(Statement.RETURN_GENERATED_KEYS));
+        assertTrue(sql.getValue().contains("id = LAST_INSERT_ID(id)"));
+    }
+
+    @Test
+    void updateReturnsExistingIdFromFirstKey() {
+        // 更新路径影响行数为2，驱动返回两个键，第二个不是有效ID
+        returnGeneratedKeys(7, 8);
+
+        WatchHistory saved = service.saveWatchHistory(watchHistory(60));
+
+        assertEquals(7, saved.getId());
+    }
+
+    @Test
+    void unchangedRowFallsBackToLookupByUniqueKey() {
+        returnGeneratedKeys();
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(1), eq(2))).thenReturn(7);
+
+        WatchHistory saved = service.saveWatchHistory(watchHistory(60));
+
+        assertEquals(7, saved.getId());
+    }
+
+    private void returnGeneratedKeys(long... ids) {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(1);
+            for (long id : ids) {
+                keyHolder.getKeyList().add(Collections.<String, Object>singletonMap("GENERATED_KEY", id));
+            }
+            return ids.length;
+        });
+    }
+
+    private static WatchHistory watchHistory(int progress) {
+        WatchHistory watchHistory = new WatchHistory();
+        watchHistory.setUserId(1);
+        watchHistory.setVideoId(2);
+        watchHistory.setProgress(progress);
+        return watchHistory;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.kidappapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void addedValuesAreNeverReportedMissing() {
+        // 加入超过预计元素数的值，误判率升高时同样不能出现假阴性
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 5000; i++) {
+            filter.put("user-" + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.mightContain("user-" + i), "user-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "误判数" + falsePositives);
+    }
+
+    @Test
+    void positionsAreStableAndInRange() {
+        long numBits = BloomFilter.optimalNumBits(1000, 0.01);
+        int numHashes = BloomFilter.optimalNumHashes(1000, numBits);
+        long[] positions = BloomFilter.positions("用户名", numBits, numHashes);
+
+        // Redis位图由多个节点共享，下标必须只取决于值本身
+        assertArrayEquals(positions, BloomFilter.positions("用户名", numBits, numHashes));
+        for (long position : positions) {
+            assertTrue(position >= 0 && position < numBits);
+        }
+    }
+}
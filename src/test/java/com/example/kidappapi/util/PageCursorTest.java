@@ -0,0 +1,50 @@
+package com.example.kidappapi.util;
+
+import com.example.kidappapi.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTest {
+
+    @Test
+    void encodedCursorRoundTrips() {
+        Date createdAt = new Date(1700000000123L);
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(createdAt, 42));
+
+        assertEquals(createdAt, cursor.getDateValue());
+        assertEquals(42, cursor.getId());
+
+        PageCursor countCursor = PageCursor.decode(PageCursor.encode(0L, 7));
+        assertEquals(0, countCursor.getIntValue());
+        assertEquals(7, countCursor.getId());
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String encoded = PageCursor.encode(Long.MAX_VALUE, Integer.MAX_VALUE);
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @Test
+    void emptyCursorIsFirstPage() {
+        PageCursor cursor = PageCursor.decode("");
+
+        assertEquals(Integer.MAX_VALUE, cursor.getId());
+        assertEquals(Integer.MAX_VALUE, cursor.getIntValue());
+        assertEquals(Long.MAX_VALUE, cursor.getLongValue());
+        // 第一页的时间上界仍在MySQL DATETIME范围内
+        assertEquals(32503680000000L, cursor.getDateValue().getTime());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("!!!"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode(PageCursor.encode(1L, 1).substring(1)));
+    }
+}
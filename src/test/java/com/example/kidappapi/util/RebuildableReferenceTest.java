@@ -0,0 +1,62 @@
+package com.example.kidappapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RebuildableReferenceTest {
+
+    @Test
+    void updatesDuringRebuildAreReplayedOnNewStructure() {
+        RebuildableReference<List<String>> reference = new RebuildableReference<>();
+        reference.rebuild(() -> new ArrayList<>(Arrays.asList("old")));
+        List<String> previous = reference.get();
+
+        assertTrue(reference.rebuild(() -> {
+            // 重建读取数据库期间到达的更新
+            reference.apply(list -> list.add("during"));
+            return new ArrayList<>(Arrays.asList("loaded"));
+        }));
+
+        assertEquals(Arrays.asList("old", "during"), previous);
+        assertEquals(Arrays.asList("loaded", "during"), reference.get());
+    }
+
+    @Test
+    void concurrentRebuildIsSkipped() {
+        RebuildableReference<List<String>> reference = new RebuildableReference<>();
+        boolean[] nested = new boolean[1];
+
+        reference.rebuild(() -> {
+            nested[0] = reference.rebuild(ArrayList::new);
+            return new ArrayList<>();
+        });
+
+        assertFalse(nested[0]);
+    }
+
+    @Test
+    void failedRebuildKeepsCurrentStructure() {
+        RebuildableReference<List<String>> reference = new RebuildableReference<>();
+        assertNull(reference.get());
+        reference.rebuild(ArrayList::new);
+        List<String> current = reference.get();
+
+        assertThrows(IllegalStateException.class, () -> reference.rebuild(() -> {
+            throw new IllegalStateException("db down");
+        }));
+        reference.apply(list -> list.add("after"));
+
+        assertSame(current, reference.get());
+        assertEquals(Arrays.asList("after"), current);
+    }
+}